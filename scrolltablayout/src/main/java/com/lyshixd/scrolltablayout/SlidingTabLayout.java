@@ -1,6 +1,5 @@
 package com.lyshixd.scrolltablayout;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
@@ -8,9 +7,9 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.drawable.GradientDrawable;
+import android.text.TextPaint;
 import android.text.TextUtils;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.View;
@@ -22,6 +21,10 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.viewpager.widget.ViewPager;
 
+import com.lyshixd.tabcore.TabGeometry;
+import com.lyshixd.tabcore.TransitionCurve;
+import com.lyshixd.tabview.TabItemView;
+
 import java.util.ArrayList;
 
 public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.OnPageChangeListener {
@@ -83,6 +86,28 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 	private GradientDrawable mIndicatorDrawable = new GradientDrawable();
 	private int mIndicatorGravity;
 
+	/** 虚拟化模式：只把可见范围内(加上两侧少量余量)的tab实例化为view，其余tab只保留计算出的位置 */
+	private boolean mIsVirtualized = false;
+	//可见范围两侧额外保留的tab数量
+	private static final int VIRTUAL_MARGIN = 2;
+	//虚拟化模式下根据标题计算出的每个tab的位置，以及标题文字宽度
+	private final TabGeometry mGeometry = new TabGeometry();
+	private float[] mTitleWidths;
+	//当前已实例化的tab范围
+	private int mFirstMaterialized = -1;
+	private int mLastMaterialized = -1;
+	//占位view，撑开第一个已实例化tab之前的宽度
+	private View mLeadingSpace;
+	//被回收、等待复用的tab
+	private final ArrayList<View> mRecycledTabs = new ArrayList<>();
+	//tab布局，默认为单个TabItemView
+	private int mTabLayoutRes = R.layout.layout_tab;
+	//用于测量标题宽度
+	private final TextPaint mMeasurePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+	//标题字号的过渡曲线，样式变化后置空，使用时按需重新生成查找表
+	private TransitionCurve mTransitionCurve;
+	private TransitionCurve.Easing mTransitionEasing = TransitionCurve.LINEAR;
+
 	private OnTabSelectListener selectListener;
 
 
@@ -157,7 +182,29 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 
 		mTextSizeType = ta.getInt(R.styleable.SlidingTabLayout_sl_text_size_type, TypedValue.COMPLEX_UNIT_DIP);
 
+		mIsVirtualized = ta.getBoolean(R.styleable.SlidingTabLayout_sl_tab_virtualized, false);
+
 		ta.recycle();
+		updateIndicatorDrawable();
+	}
+
+	/**
+	 * 按颜色和圆角配置指示器，绘制时只设置位置
+	 */
+	private void updateIndicatorDrawable() {
+		// 设置渐变色
+		if (mIndicatorStartColor != 0 && mIndicatorEndColor != 0) {
+			mIndicatorDrawable.setGradientType(GradientDrawable.LINEAR_GRADIENT);
+			mIndicatorDrawable.setOrientation(GradientDrawable.Orientation.LEFT_RIGHT);
+			if (mIndicatorCenterColor != 0) {
+				mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorCenterColor, mIndicatorEndColor});
+			} else {
+				mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorEndColor});
+			}
+		} else {
+			mIndicatorDrawable.setColor(mIndicatorColor);
+		}
+		mIndicatorDrawable.setCornerRadius(mIndicatorCornerRadius);
 	}
 
 	/**
@@ -174,14 +221,25 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 	 * 更新数据
 	 */
 	private void notifyDataSetChanged() {
+		recycleMaterializedTabs();
 		mTabsContainer.removeAllViews();
 		if (mViewPager == null || mViewPager.getAdapter() == null) {
 			throw new IllegalStateException("ViewPager or ViewPager Adapter is null");
 		}
 		mTabCount = mTitles == null ? mViewPager.getAdapter().getCount() : mTitles.size();
+		if (mIsVirtualized) {
+			measureVirtualTabs();
+			if (mLeadingSpace == null) {
+				mLeadingSpace = new View(mContext);
+			}
+			mTabsContainer.addView(mLeadingSpace, new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT));
+			updateVirtualWindow();
+			return;
+		}
+		mTabsContainer.setMinimumWidth(0);
 		View tabView;
 		for (int i = 0; i < mTabCount; i++) {
-			tabView = View.inflate(mContext, R.layout.layout_tab, null);
+			tabView = View.inflate(mContext, mTabLayoutRes, null);
 			CharSequence pageTitle = mTitles == null ? mViewPager.getAdapter().getPageTitle(i) : mTitles.get(i);
 			if (pageTitle != null)
 				addTab(i, pageTitle.toString(), tabView);
@@ -202,25 +260,7 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 			return;
 		}
 		tv_tab_text.setText(title);
-		tabView.setOnClickListener(new OnClickListener() {
-			@Override
-			public void onClick(View v) {
-				int position = mTabsContainer.indexOfChild(v);
-				if (position >= 0) {
-					// 当前viewpager未选中此项
-					if (mViewPager.getCurrentItem() != position) {
-						mViewPager.setCurrentItem(position, Math.abs(mCurrentTab - position) == 1);
-						if (selectListener != null) {
-							selectListener.onTabFirstChose(position);
-						}
-					} else {
-						if (selectListener != null) {
-							selectListener.onTabReselctChose(position);
-						}
-					}
-				}
-			}
-		});
+		tabView.setOnClickListener(mTabClickListener);
 
 		//设置样式
 		LinearLayout.LayoutParams params;
@@ -234,37 +274,274 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 		mTabsContainer.addView(tabView, position, params);
 	}
 
+	private final OnClickListener mTabClickListener = new OnClickListener() {
+		@Override
+		public void onClick(View v) {
+			//虚拟化模式下tab在容器中的left就是它在位置表中的left
+			int position = mIsVirtualized ? mGeometry.hitTest(v.getLeft()) : mTabsContainer.indexOfChild(v);
+			if (position >= 0) {
+				// 当前viewpager未选中此项
+				if (mViewPager.getCurrentItem() != position) {
+					mViewPager.setCurrentItem(position, Math.abs(mCurrentTab - position) == 1);
+					if (selectListener != null) {
+						selectListener.onTabFirstChose(position);
+					}
+				} else {
+					if (selectListener != null) {
+						selectListener.onTabReselctChose(position);
+					}
+				}
+			}
+		}
+	};
+
+	/**
+	 * 虚拟化模式下根据标题计算每个tab的位置和宽度，不创建任何view
+	 */
+	private void measureVirtualTabs() {
+		mGeometry.reset(mTabCount);
+		if (mTitleWidths == null || mTitleWidths.length < mTabCount) {
+			mTitleWidths = new float[mTabCount];
+		}
+		//tab宽度按较大的字号计算，滑动时字号变化不会改变tab宽度
+		mMeasurePaint.setTextSize(TypedValue.applyDimension(mTextSizeType,
+				Math.max(mTextSelectSize, mTextUnSelectSize), getResources().getDisplayMetrics()));
+		mMeasurePaint.setFakeBoldText(mTextBold != TEXT_BOLD_NONE);
+		int equalWidth = mTabCount > 0 ? (getWidth() - getPaddingLeft() - getPaddingRight()) / mTabCount : 0;
+
+		for (int i = 0; i < mTabCount; i++) {
+			CharSequence pageTitle = getPageTitleAt(i);
+			float textWidth = pageTitle == null ? 0 : mMeasurePaint.measureText(pageTitle, 0, pageTitle.length());
+			int width;
+			if (mTabWidth > 0) {
+				width = (int) mTabWidth;
+			} else if (mIsTabWidthEqual) {
+				width = equalWidth;
+			} else {
+				width = (int) Math.ceil(textWidth + mTabPadding * 2);
+			}
+			mTitleWidths[i] = textWidth;
+			mGeometry.setWidth(i, width);
+		}
+		//容器内只有少量tab，靠最小宽度撑开整体的滚动范围
+		mTabsContainer.setMinimumWidth(mGeometry.getTotalWidth());
+	}
+
+	private CharSequence getPageTitleAt(int position) {
+		return mTitles == null ? mViewPager.getAdapter().getPageTitle(position) : mTitles.get(position);
+	}
+
+	/**
+	 * 虚拟化模式下根据当前滚动位置更新已实例化的tab，移出可见范围的tab被回收复用
+	 */
+	private void updateVirtualWindow() {
+		updateVirtualWindow(getScrollX());
+	}
+
+	/**
+	 * @param scrollX 滚动位置，onScrollChanged中使用回调参数，不依赖getScrollX是否已更新
+	 */
+	private void updateVirtualWindow(int scrollX) {
+		if (!mIsVirtualized || mTabCount <= 0 || mLeadingSpace == null) {
+			return;
+		}
+		int viewportWidth = getWidth() > 0 ? getWidth() : getResources().getDisplayMetrics().widthPixels;
+		int start = scrollX - getPaddingLeft();
+		int first = Math.max(0, mGeometry.indexAt(start) - VIRTUAL_MARGIN);
+		int last = Math.min(mTabCount - 1, mGeometry.indexAt(start + viewportWidth) + VIRTUAL_MARGIN);
+		if (first == mFirstMaterialized && last == mLastMaterialized) {
+			return;
+		}
+
+		if (mFirstMaterialized < 0 || last < mFirstMaterialized || first > mLastMaterialized) {
+			//新旧范围没有交集，全部回收后重新实例化
+			recycleMaterializedTabs();
+			for (int i = first; i <= last; i++) {
+				mTabsContainer.addView(bindVirtualTab(i));
+			}
+		} else {
+			//只回收移出范围的tab，补上新进入范围的tab
+			while (mFirstMaterialized < first) {
+				recycleTabAt(1);
+				mFirstMaterialized++;
+			}
+			while (mLastMaterialized > last) {
+				recycleTabAt(mTabsContainer.getChildCount() - 1);
+				mLastMaterialized--;
+			}
+			while (mFirstMaterialized > first) {
+				mFirstMaterialized--;
+				mTabsContainer.addView(bindVirtualTab(mFirstMaterialized), 1);
+			}
+			while (mLastMaterialized < last) {
+				mLastMaterialized++;
+				mTabsContainer.addView(bindVirtualTab(mLastMaterialized));
+			}
+		}
+		mFirstMaterialized = first;
+		mLastMaterialized = last;
+
+		ViewGroup.LayoutParams spaceParams = mLeadingSpace.getLayoutParams();
+		spaceParams.width = mGeometry.getLeft(first);
+		mLeadingSpace.setLayoutParams(spaceParams);
+	}
+
+	/**
+	 * 取一个回收的tab(没有则创建)并绑定到指定位置
+	 */
+	private View bindVirtualTab(int position) {
+		View tabView = mRecycledTabs.isEmpty()
+				? View.inflate(mContext, mTabLayoutRes, null)
+				: mRecycledTabs.remove(mRecycledTabs.size() - 1);
+		TextView title = tabView.findViewById(R.id.tv_tab_title);
+		title.setText(getPageTitleAt(position));
+		applyTabStyle(title, mViewPager.getCurrentItem() == position);
+		tabView.setOnClickListener(mTabClickListener);
+
+		LinearLayout.LayoutParams params = (LinearLayout.LayoutParams) tabView.getLayoutParams();
+		if (params == null) {
+			params = new LinearLayout.LayoutParams(mGeometry.getWidth(position), LinearLayout.LayoutParams.MATCH_PARENT);
+		}
+		params.width = mGeometry.getWidth(position);
+		tabView.setLayoutParams(params);
+		return tabView;
+	}
+
+	private void recycleTabAt(int index) {
+		View tabView = mTabsContainer.getChildAt(index);
+		mTabsContainer.removeViewAt(index);
+		mRecycledTabs.add(tabView);
+	}
+
+	/**
+	 * 回收所有已实例化的tab
+	 */
+	private void recycleMaterializedTabs() {
+		if (mFirstMaterialized < 0) {
+			return;
+		}
+		for (int i = mTabsContainer.getChildCount() - 1; i >= 1; i--) {
+			recycleTabAt(i);
+		}
+		mFirstMaterialized = -1;
+		mLastMaterialized = -1;
+	}
+
+	private int getTabLeft(int position) {
+		return mIsVirtualized ? mGeometry.getLeft(position) : mTabsContainer.getChildAt(position).getLeft();
+	}
+
+	private int getTabWidth(int position) {
+		return mIsVirtualized ? mGeometry.getWidth(position) : mTabsContainer.getChildAt(position).getWidth();
+	}
+
+	/**
+	 * 获取已实例化tab的标题，虚拟化模式下不在实例化范围内时返回null
+	 */
+	private TextView getTitleView(int position) {
+		View tabView;
+		if (!mIsVirtualized) {
+			tabView = mTabsContainer.getChildAt(position);
+		} else if (position < mFirstMaterialized || position > mLastMaterialized) {
+			return null;
+		} else {
+			tabView = mTabsContainer.getChildAt(position - mFirstMaterialized + 1);
+		}
+		return tabView == null ? null : (TextView) tabView.findViewById(R.id.tv_tab_title);
+	}
+
+	/**
+	 * 是否开启虚拟化模式，开启后只实例化可见范围内的tab，适用于tab数量很多的情况
+	 */
+	public void setVirtualized(boolean virtualized) {
+		if (mIsVirtualized == virtualized) {
+			return;
+		}
+		recycleMaterializedTabs();
+		this.mIsVirtualized = virtualized;
+		if (mViewPager != null) {
+			notifyDataSetChanged();
+		}
+	}
+
+	public boolean isVirtualized() {
+		return mIsVirtualized;
+	}
+
+	/**
+	 * 设置自定义tab布局，默认为单个TabItemView的R.layout.layout_tab，布局中需要包含id为tv_tab_title的TextView
+	 * @param layoutRes tab布局
+	 */
+	public void setTabLayout(int layoutRes) {
+		if (mTabLayoutRes == layoutRes) {
+			return;
+		}
+		recycleMaterializedTabs();
+		//回收池中是旧布局的view，不能再复用
+		mRecycledTabs.clear();
+		this.mTabLayoutRes = layoutRes;
+		if (mViewPager != null) {
+			notifyDataSetChanged();
+		}
+	}
+
 	/**
 	 * 设置tab样式
 	 */
 	private void updateTabStyles() {
 		for (int i = 0; i < mTabCount; i++) {
-			boolean isSelect = i == mCurrentTab;
-			View tabView = mTabsContainer.getChildAt(i);
-			TextView title = tabView.findViewById(R.id.tv_tab_title);
+			TextView title = getTitleView(i);
 			if (title == null) {
+				if (mIsVirtualized) {
+					continue;
+				}
 				break;
 			}
-			title.setTextColor(isSelect ? mTextSelectColor : mTextUnSelectColor);
-			title.setTextSize(mTextSizeType, isSelect ? mTextSelectSize : mTextUnSelectSize);
-			title.setPadding((int)mTabPadding, 0, (int)mTabPadding, 0);
-			if (mTextBold == TEXT_BOLD_BOTH) {
-				title.getPaint().setFakeBoldText(true);
-			}
-			else if (mTextBold == TEXT_BOLD_SELCET) {
-				title.getPaint().setFakeBoldText(isSelect);
-			}
-			else {
-				title.getPaint().setFakeBoldText(false);
+			applyTabStyle(title, i == mCurrentTab);
+		}
+	}
+
+	/**
+	 * 设置单个tab的样式
+	 */
+	private void applyTabStyle(TextView title, boolean isSelect) {
+		title.setTextColor(isSelect ? mTextSelectColor : mTextUnSelectColor);
+		title.setTextSize(mTextSizeType, isSelect ? mTextSelectSize : mTextUnSelectSize);
+		title.setPadding((int)mTabPadding, 0, (int)mTabPadding, 0);
+		setTitleBold(title, mTextBold == TEXT_BOLD_BOTH || (mTextBold == TEXT_BOLD_SELCET && isSelect));
+	}
+
+	/**
+	 * 设置标题粗体，默认的TabItemView状态不变时不重绘
+	 */
+	private void setTitleBold(TextView title, boolean bold) {
+		if (title instanceof TabItemView) {
+			((TabItemView) title).setFakeBold(bold);
+			return;
+		}
+		title.getPaint().setFakeBoldText(bold);
+	}
+
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		if (mIsVirtualized && mTabCount > 0) {
+			if (mIsTabWidthEqual && mTabWidth <= 0) {
+				measureVirtualTabs();
+				recycleMaterializedTabs();
 			}
+			updateVirtualWindow();
 		}
 	}
 
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+		super.onScrollChanged(l, t, oldl, oldt);
+		updateVirtualWindow(l);
+	}
+
 	@Override
 	public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-		Log.d("mLog", "onPageScrolled********: " + position);
-//		Log.d("mLog", "positionOffsetPixels********: " + positionOffsetPixels);
-//		Log.d("mLog", "positionOffsetPixels: " + positionOffsetPixels + "-----" + i++);
 		this.mCurrentTab = position;
 		this.mCurrentPositionOffset = positionOffset;
 		scrollToCurrentTab();
@@ -278,7 +555,6 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 	public void onPageSelected(int position) {
 		updateTabSelection(position);
 		mIsScrollSelected = true;
-		Log.d("mLog", "onPageSelected----------------------------: " + position);
 	}
 
 	@Override
@@ -303,12 +579,10 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 			return;
 		}
 		if (mViewPager.getCurrentItem() == position) {
-			Log.d("mLog", "下一个: " + position);
 			isNext = true;
 			changeTextSize(isNext, mViewPager.getCurrentItem() + 1);
 		}
 		if (mViewPager.getCurrentItem() - 1 == position) {
-			Log.d("mLog", "上一个: " + position);
 			isNext = false;
 			changeTextSize(isNext, mViewPager.getCurrentItem() - 1);
 		}
@@ -316,75 +590,39 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 	}
 
 
-	private int mLastOffsetPixels;
-//	private void cal(int position, int positionOffsetPixels) {
-//		if (positionOffsetPixels == 0) {
-//			mLastOffsetPixels = 0;
-//			return;
-//		}
-//
-//		// 下一个显示
-//		if (mViewPager.getCurrentItem() == position) {
-//			if (positionOffsetPixels > mLastOffsetPixels) {
-//				//TODO 开始处理
-//				changeTextSize(position, positionOffsetPixels);
-//			}
-//			Log.d("mLog", "下一个显示: " + positionOffsetPixels + "-----");
-//
-//
-//		} else if (mViewPager.getCurrentItem() - 1 == position) {
-//			if (positionOffsetPixels > mLastOffsetPixels) {
-//				//TODO 开始处理
-//				changeTextSize(position, positionOffsetPixels);
-//			}
-//		}
-//
-////		if (positionOffsetPixels > mLastOffsetPixels) {
-////
-////			if (mViewPager.getCurrentItem() == position + 1) {
-////				Log.d("mLog", "向右滑动时  滑动过程未结束，但已选中");
-////				mLastOffsetPixels = 0;
-////				return;
-////			}
-////			//TODO 开始处理
-////			changeTextSize(position, positionOffsetPixels);
-////		}
-////		else if (positionOffsetPixels < mLastOffsetPixels) {
-////			Log.d("mLog", "上一个显示: " + positionOffsetPixels + "-----");
-////			// 向右滑动时  滑动过程未结束，但已选中
-////			if (mViewPager.getCurrentItem() == position) {
-////				Log.d("mLog", "向右滑动时  滑动过程未结束，但已选中");
-////				mLastOffsetPixels = 0;
-////				return;
-////			}
-////			//TODO 开始处理
-////			changeTextSize(position, positionOffsetPixels);
-////		}
-////		else {
-////			Log.d("mLog", "手指停留: " + positionOffsetPixels + "-----");
-////			mLastOffsetPixels = 0;
-////			return;
-////		}
-//
-//		mLastOffsetPixels = positionOffsetPixels;
-//	}
-
-	private int i = 0;
 	private void changeTextSize(boolean isNext, int nextPosition) {
 
-		TextView currentText = mTabsContainer.getChildAt(mViewPager.getCurrentItem()).findViewById(R.id.tv_tab_title);
-		TextView nextText = mTabsContainer.getChildAt(nextPosition).findViewById(R.id.tv_tab_title);
-
-		Log.d("mLog", "currentText: " + currentText.getText().toString() + "   nextText: " + nextText.getText().toString());
-
-		float dis = Math.abs(mTextUnSelectSize - mTextSelectSize) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset));
+		TextView currentText = getTitleView(mViewPager.getCurrentItem());
+		TextView nextText = getTitleView(nextPosition);
+		//虚拟化模式下tab可能尚未实例化，实例化时会按选中状态重新设置样式
+		if (currentText == null || nextText == null) {
+			return;
+		}
 
-//		Log.d("mLog", "nextSize: " + mTextUnSelectSize + dis);
-		Log.d("mLog", "mCurrentPositionOffset: " + mCurrentPositionOffset);
+		TransitionCurve curve = getTransitionCurve();
+		float fraction = isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset);
+		//滑动中只过渡字号，颜色在选中变化时切换
+		currentText.setTextSize(mTextSizeType, curve.leaveSize(fraction));
+		nextText.setTextSize(mTextSizeType, curve.enterSize(fraction));
+	}
 
-		currentText.setTextSize(mTextSizeType, mTextSelectSize - dis);
-		nextText.setTextSize(mTextSizeType, mTextUnSelectSize + dis);
+	/**
+	 * 获取过渡曲线，样式变化后重新生成
+	 */
+	private TransitionCurve getTransitionCurve() {
+		if (mTransitionCurve == null) {
+			mTransitionCurve = new TransitionCurve(mTextSelectColor, mTextUnSelectColor,
+					mTextSelectSize, mTextUnSelectSize, mTransitionEasing, TransitionCurve.COLOR_SPACE_SRGB);
+		}
+		return mTransitionCurve;
+	}
 
+	/**
+	 * 设置标题滑动过渡的缓动函数，默认线性
+	 */
+	public void setTransitionEasing(TransitionCurve.Easing easing) {
+		this.mTransitionEasing = easing == null ? TransitionCurve.LINEAR : easing;
+		mTransitionCurve = null;
 	}
 
 	private int mLastScrollX;
@@ -397,9 +635,9 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 			return;
 		}
 		// 平移距离
-		int offsetdistance = (int) (mCurrentPositionOffset * mTabsContainer.getChildAt(mCurrentTab).getWidth());
+		int offsetdistance = (int) (mCurrentPositionOffset * getTabWidth(mCurrentTab));
 		//当前Tab的left+当前Tab的Width
-		int newScrollX = mTabsContainer.getChildAt(mCurrentTab).getLeft() + offsetdistance;
+		int newScrollX = getTabLeft(mCurrentTab) + offsetdistance;
 		if (mCurrentTab > 0 || offsetdistance > 0) {
 			//HorizontalScrollView移动到当前tab,并居中
 			newScrollX -= getWidth() / 2 - getPaddingLeft();
@@ -415,7 +653,7 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 			 */
 			scrollTo(newScrollX, 0);
 		}
-
+		updateVirtualWindow();
 	}
 
 
@@ -424,14 +662,13 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 	 */
 	private void updateTabSelection(int position) {
 		for (int i = 0; i < mTabCount; ++i) {
-			View tabView = mTabsContainer.getChildAt(i);
 			boolean isSelect = i == position;
-			TextView title = (TextView) tabView.findViewById(R.id.tv_tab_title);
+			TextView title = getTitleView(i);
 			if (title != null) {
 				title.setTextColor(isSelect ? mTextSelectColor : mTextUnSelectColor);
 				title.setTextSize(mTextSizeType, isSelect ? mTextSelectSize : mTextUnSelectSize);
 				if (mTextBold == TEXT_BOLD_SELCET) {
-					title.getPaint().setFakeBoldText(isSelect);
+					setTitleBold(title, isSelect);
 				}
 			}
 		}
@@ -444,32 +681,26 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 	 * 配置指示器位置
 	 */
 	private void calcIndicatorRect() {
-		View currentTabView = mTabsContainer.getChildAt(mCurrentTab);
-		float left = currentTabView.getLeft();
-		float right = currentTabView.getRight();
+		int currentTabWidth = getTabWidth(mCurrentTab);
+		float left = getTabLeft(mCurrentTab);
+		float right = left + currentTabWidth;
 
 		if (mIsIndicatorWidthEqualTitle) {
-			TextView title = currentTabView.findViewById(R.id.tv_tab_title);
-			//TODO 不一定是这个大小
-			mTextPaint.setTextSize(mTextSelectSize);
-			float textWidth = mTextPaint.measureText(title.getText().toString());
+			float textWidth = getTitleWidth(mCurrentTab);
 			margin = (right - left - textWidth) / 2;
 		}
 
 		// 如果不到最后一个,配置下一个tab
 		if (mCurrentTab < mTabCount - 1) {
-			View nextTabView = mTabsContainer.getChildAt(mCurrentTab + 1);
-			float nextTabLeft = nextTabView.getLeft();
-			float nextTabRight = nextTabView.getRight();
+			int nextTabWidth = getTabWidth(mCurrentTab + 1);
+			float nextTabLeft = getTabLeft(mCurrentTab + 1);
+			float nextTabRight = nextTabLeft + nextTabWidth;
 
 			left = left + mCurrentPositionOffset * (nextTabLeft - left);
 			right = right + mCurrentPositionOffset * (nextTabRight - right);
 
 			if (mIsIndicatorWidthEqualTitle) {
-				TextView nextTitle = nextTabView.findViewById(R.id.tv_tab_title);
-				//TODO 不一定是这个大小
-				mTextPaint.setTextSize(mTextSelectSize);
-				float nextTextWidth = mTextPaint.measureText(nextTitle.getText().toString());
+				float nextTextWidth = getTitleWidth(mCurrentTab + 1);
 				margin = margin + mCurrentPositionOffset * (nextTextWidth - margin);
 			}
 		}
@@ -485,20 +716,32 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 		mTabRect.right = (int) right;
 
 		if (mIndicatorWidth >= 0) {
-			float indicatorLeft = currentTabView.getLeft() + (currentTabView.getWidth() - mIndicatorWidth) / 2;
+			float indicatorLeft = getTabLeft(mCurrentTab) + (currentTabWidth - mIndicatorWidth) / 2;
 			if (mCurrentTab < mTabCount - 1) {
-				View nextTab = mTabsContainer.getChildAt(mCurrentTab + 1);
 				indicatorLeft = indicatorLeft
 						+ mCurrentPositionOffset
-						* ((float) currentTabView.getWidth() / 2 + (float) nextTab.getWidth() / 2);
+						* ((float) currentTabWidth / 2 + (float) getTabWidth(mCurrentTab + 1) / 2);
 			}
 			mIndicatorRect.left = (int) indicatorLeft;
 			mIndicatorRect.right = (int) (mIndicatorRect.left + mIndicatorWidth);
 		}
 	}
 
+	/**
+	 * 标题文字宽度，虚拟化模式下使用预先计算的宽度
+	 */
+	private float getTitleWidth(int position) {
+		if (mIsVirtualized) {
+			return mTitleWidths[position];
+		}
+		TextView title = getTitleView(position);
+		//TODO 不一定是这个大小
+		mTextPaint.setTextSize(mTextSelectSize);
+		CharSequence text = title.getText();
+		return mTextPaint.measureText(text, 0, text.length());
+	}
+
 
-	@SuppressLint("DrawAllocation")
 	@Override
 	protected void onDraw(Canvas canvas) {
 		super.onDraw(canvas);
@@ -512,19 +755,6 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 		// 绘制指示器
 		calcIndicatorRect();
 		if (mIndicatorWidth >= 0){
-			// 设置渐变色
-			if (mIndicatorStartColor != 0 && mIndicatorEndColor != 0) {
-				mIndicatorDrawable.setGradientType(GradientDrawable.LINEAR_GRADIENT);
-				mIndicatorDrawable.setOrientation(GradientDrawable.Orientation.LEFT_RIGHT);
-				if (mIndicatorCenterColor != 0) {
-					mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorCenterColor, mIndicatorEndColor});
-				} else {
-					mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorEndColor});
-				}
-			} else {
-				mIndicatorDrawable.setColor(mIndicatorColor);
-			}
-
 			if (mIndicatorGravity == Gravity.BOTTOM) {
 				mIndicatorDrawable.setBounds(
 						paddingLeft + (int) mIndicatorMarginLeft + mIndicatorRect.left,
@@ -539,7 +769,6 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 						paddingLeft + mIndicatorRect.right - (int) mIndicatorMarginRight,
 						height - (int) mIndicatorMarginBottom);
 			}
-			mIndicatorDrawable.setCornerRadius(mIndicatorCornerRadius);
 			mIndicatorDrawable.draw(canvas);
 		}
 	}
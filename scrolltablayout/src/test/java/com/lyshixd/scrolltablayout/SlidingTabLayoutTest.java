@@ -0,0 +1,357 @@
+package com.lyshixd.scrolltablayout;
+
+import android.app.Activity;
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.viewpager.widget.PagerAdapter;
+import androidx.viewpager.widget.ViewPager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ *@Description: 虚拟化模式下的tab窗口、点击定位，以及滑动时每帧的requestLayout、invalidate、scrollTo次数和内存分配。
+ * 回调由FakePager逐帧发出，不依赖ViewPager内部的滚动实现
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SlidingTabLayoutTest {
+
+	private static final int TAB_COUNT = 100;
+	private static final int TAB_WIDTH = 60;
+	private static final int VIEWPORT_WIDTH = 300;
+	private static final int FRAMES_PER_SWIPE = 20;
+	//每帧允许的分配字节数，小于一个空数组(16字节)，每帧分配任何对象都会超出
+	private static final long ALLOCATION_BUDGET_PER_FRAME = 8;
+
+	private Activity mActivity;
+	private LinearLayout mRoot;
+	private FakePager mViewPager;
+	private CountingTabLayout mTabLayout;
+	private LinearLayout mTabsContainer;
+
+	@Before
+	public void setUp() {
+		mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+		mRoot = new LinearLayout(mActivity);
+		mRoot.setOrientation(LinearLayout.VERTICAL);
+		mActivity.setContentView(mRoot);
+	}
+
+	@Test
+	public void virtualizedModeOnlyMaterializesVisibleTabs() {
+		attach(0);
+
+		//可见范围[0, 300]的终点落在第6个tab的左边缘，再加上右侧两个余量，只实例化0到7
+		assertEquals(8, mTabsContainer.getChildCount() - 1);
+		assertEquals("Tab 7", getTitle(mTabsContainer.getChildCount() - 1));
+		assertEquals(TAB_COUNT * TAB_WIDTH, mTabsContainer.getMinimumWidth());
+
+		mTabLayout.scrollTo(50 * TAB_WIDTH, 0);
+		frames(1);
+
+		//可见范围两侧各保留两个tab，占位view撑开之前的宽度，移出范围的tab被复用
+		assertEquals(10, mTabsContainer.getChildCount() - 1);
+		assertEquals("Tab 48", getTitle(1));
+		assertEquals("Tab 57", getTitle(mTabsContainer.getChildCount() - 1));
+		assertEquals(48 * TAB_WIDTH, mTabsContainer.getChildAt(0).getLayoutParams().width);
+	}
+
+	@Test
+	public void tapOnVirtualTabSelectsItsPage() {
+		attach(0);
+		mTabLayout.scrollTo(50 * TAB_WIDTH, 0);
+		frames(1);
+
+		View tab = mTabsContainer.getChildAt(3);
+		assertEquals(50 * TAB_WIDTH, tab.getLeft());
+		tab.performClick();
+
+		assertEquals(50, mViewPager.getCurrentItem());
+	}
+
+	@Test
+	public void swipeFramesStayWithinBudgets() {
+		attach(10);
+		mTabLayout.resetCounts();
+
+		int frameCount = swipeBackAndForth(1);
+
+		//滑动不超过半页，已实例化的范围不变，不重新布局，每帧最多一次scrollTo和一次invalidate
+		assertEquals(0, mTabLayout.mRequestLayoutCount);
+		assertTrue(mTabLayout.mScrollToCount > 0);
+		assertTrue(mTabLayout.mScrollToCount <= frameCount);
+		assertTrue(mTabLayout.mInvalidateCount <= frameCount);
+	}
+
+	@Test
+	public void swipeFramesStayWithinAllocationBudget() {
+		attach(10);
+		com.sun.management.ThreadMXBean threadBean = getThreadBean();
+		long threadId = Thread.currentThread().getId();
+		//预热，类加载和首次绘制的分配不计入
+		swipeBackAndForth(5);
+		mTabLayout.resetCounts();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		int frameCount = swipeBackAndForth(5);
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+		allocated -= measureShadowAllocation(threadBean, threadId, mTabLayout.mInvalidateCount, mTabLayout.mScrollToCount);
+		long perFrame = allocated / frameCount;
+
+		assertTrue("A swipe frame allocated " + perFrame + " bytes", perFrame <= ALLOCATION_BUDGET_PER_FRAME);
+	}
+
+	/**
+	 * Robolectric的View影子在invalidate和scrollTo时分配代理对象、反射调用和装箱坐标，这部分不是被测代码的分配。
+	 * 在空白view上调用同样次数，坐标取与滑动中相近的值，返回分配的字节数
+	 */
+	private long measureShadowAllocation(com.sun.management.ThreadMXBean threadBean, long threadId,
+			int invalidateCount, int scrollToCount) {
+		View view = new View(mActivity);
+		mRoot.addView(view, new LinearLayout.LayoutParams(10, 10));
+		frames(1);
+		view.invalidate();
+		view.scrollTo(10 * TAB_WIDTH, 0);
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < invalidateCount; i++) {
+			view.invalidate();
+		}
+		for (int i = 0; i < scrollToCount; i++) {
+			view.scrollTo(10 * TAB_WIDTH + i % 2, 0);
+		}
+		return threadBean.getThreadAllocatedBytes(threadId) - before;
+	}
+
+	/**
+	 * 固定tab宽度的虚拟化tab栏，选中和未选中的字号、颜色相同，滑动时tab view自身不变化
+	 * @param currentItem 初始选中的页
+	 */
+	private void attach(int currentItem) {
+		AttributeSet attrs = Robolectric.buildAttributeSet()
+				.addAttribute(android.R.attr.layout_height, "48px")
+				.addAttribute(R.attr.sl_tab_virtualized, "true")
+				.addAttribute(R.attr.sl_tab_width, TAB_WIDTH + "px")
+				.addAttribute(R.attr.sl_text_size_type, "PX")
+				.addAttribute(R.attr.sl_text_select_size, "14")
+				.addAttribute(R.attr.sl_text_unselect_size, "14")
+				.addAttribute(R.attr.sl_text_select_color, "#000000")
+				.addAttribute(R.attr.sl_text_unselect_color, "#000000")
+				.build();
+		mTabLayout = new CountingTabLayout(mActivity, attrs);
+		mRoot.addView(mTabLayout, new LinearLayout.LayoutParams(VIEWPORT_WIDTH, 48));
+		mTabsContainer = (LinearLayout) mTabLayout.getChildAt(0);
+		mViewPager = new FakePager(mActivity);
+		mViewPager.setAdapter(new TitleAdapter(TAB_COUNT));
+		mRoot.addView(mViewPager, new LinearLayout.LayoutParams(VIEWPORT_WIDTH, 0, 1));
+		mTabLayout.setViewPager(mViewPager);
+		frames(2);
+		mViewPager.setCurrentItem(currentItem, false);
+		frames(2);
+	}
+
+	private String getTitle(int index) {
+		return ((TextView) mTabsContainer.getChildAt(index)).getText().toString();
+	}
+
+	/**
+	 * 推进count帧：ViewPager发出这一帧的滑动回调，时钟前进，执行到期的消息和Choreographer回调
+	 */
+	private void frames(int count) {
+		for (int i = 0; i < count; i++) {
+			mViewPager.nextFrame();
+			ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * 向后拖动不到半页再拖回来，重复count次，不松手，返回推进的帧数
+	 */
+	private int swipeBackAndForth(int count) {
+		for (int i = 0; i < count; i++) {
+			mViewPager.drag(0.45f, FRAMES_PER_SWIPE);
+			frames(FRAMES_PER_SWIPE);
+			mViewPager.drag(-0.45f, FRAMES_PER_SWIPE);
+			frames(FRAMES_PER_SWIPE);
+		}
+		return count * FRAMES_PER_SWIPE * 2;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		return threadBean;
+	}
+
+	/**
+	 * 统计tab栏自身的requestLayout、invalidate和scrollTo次数，tab的requestLayout会传到这里
+	 */
+	private static class CountingTabLayout extends SlidingTabLayout {
+
+		private int mRequestLayoutCount;
+		private int mInvalidateCount;
+		private int mScrollToCount;
+
+		CountingTabLayout(Context context, AttributeSet attrs) {
+			super(context, attrs);
+		}
+
+		void resetCounts() {
+			mRequestLayoutCount = 0;
+			mInvalidateCount = 0;
+			mScrollToCount = 0;
+		}
+
+		@Override
+		public void requestLayout() {
+			mRequestLayoutCount++;
+			super.requestLayout();
+		}
+
+		@Override
+		public void invalidate() {
+			mInvalidateCount++;
+			super.invalidate();
+		}
+
+		@Override
+		public void scrollTo(int x, int y) {
+			mScrollToCount++;
+			super.scrollTo(x, y);
+		}
+	}
+
+	/**
+	 * 拖动时逐帧发出onPageScrolled，setCurrentItem直接选中并停在目标页
+	 */
+	private static class FakePager extends ViewPager {
+
+		private final ArrayList<OnPageChangeListener> mListeners = new ArrayList<>();
+		private int mCurrentItem;
+		//以页为单位的滚动位置，以及每帧的变化和剩余帧数
+		private float mPagePosition;
+		private float mFrameDelta;
+		private int mRemainingFrames;
+
+		FakePager(Context context) {
+			super(context);
+		}
+
+		@Override
+		public void addOnPageChangeListener(OnPageChangeListener listener) {
+			super.addOnPageChangeListener(listener);
+			mListeners.add(listener);
+		}
+
+		@Override
+		public void removeOnPageChangeListener(OnPageChangeListener listener) {
+			super.removeOnPageChangeListener(listener);
+			mListeners.remove(listener);
+		}
+
+		@Override
+		public int getCurrentItem() {
+			return mCurrentItem;
+		}
+
+		@Override
+		public void setCurrentItem(int item) {
+			setCurrentItem(item, true);
+		}
+
+		@Override
+		public void setCurrentItem(int item, boolean smoothScroll) {
+			mRemainingFrames = 0;
+			if (item != mCurrentItem) {
+				mCurrentItem = item;
+				for (int i = 0; i < mListeners.size(); i++) {
+					mListeners.get(i).onPageSelected(item);
+				}
+			}
+			mPagePosition = item;
+			dispatchScrolled();
+		}
+
+		/**
+		 * 在frames帧内拖动distance页，正数向后
+		 */
+		void drag(float distance, int frames) {
+			mFrameDelta = distance / frames;
+			mRemainingFrames = frames;
+		}
+
+		void nextFrame() {
+			if (mRemainingFrames <= 0) {
+				return;
+			}
+			mRemainingFrames--;
+			mPagePosition = Math.max(0, Math.min(getAdapter().getCount() - 1, mPagePosition + mFrameDelta));
+			dispatchScrolled();
+		}
+
+		private void dispatchScrolled() {
+			int position = (int) Math.floor(mPagePosition);
+			float offset = mPagePosition - position;
+			int offsetPixels = (int) (offset * getWidth());
+			for (int i = 0; i < mListeners.size(); i++) {
+				mListeners.get(i).onPageScrolled(position, offset, offsetPixels);
+			}
+		}
+	}
+
+	private static class TitleAdapter extends PagerAdapter {
+
+		private final int mCount;
+
+		TitleAdapter(int count) {
+			this.mCount = count;
+		}
+
+		@Override
+		public int getCount() {
+			return mCount;
+		}
+
+		@Override
+		public CharSequence getPageTitle(int position) {
+			return "Tab " + position;
+		}
+
+		@Override
+		public Object instantiateItem(ViewGroup container, int position) {
+			View page = new View(container.getContext());
+			container.addView(page);
+			return page;
+		}
+
+		@Override
+		public void destroyItem(ViewGroup container, int position, Object object) {
+			container.removeView((View) object);
+		}
+
+		@Override
+		public boolean isViewFromObject(View view, Object object) {
+			return view == object;
+		}
+	}
+}
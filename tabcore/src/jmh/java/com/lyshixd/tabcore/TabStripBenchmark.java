@@ -0,0 +1,128 @@
+package com.lyshixd.tabcore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *@Description: 不同tab数量下每帧位置计算的基准测试。
+ * 每次调用前进一步滑动位置，覆盖所有tab和偏移量
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TabStripBenchmark {
+
+	//每个tab分成的滑动步数
+	private static final int STEPS_PER_TAB = 16;
+
+	@Param({"10", "100", "1000", "10000"})
+	public int tabCount;
+
+	private final TabGeometry mGeometry = new TabGeometry();
+	private final IndicatorBounds mBounds = new IndicatorBounds();
+	private final SwipeTracker mSwipeTracker = new SwipeTracker();
+	private int[] mWidths;
+	private float[] mTitleWidths;
+	private int[] mHitXs;
+	private int mStep;
+	private int mHit;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		mWidths = new int[tabCount];
+		mTitleWidths = new float[tabCount];
+		mGeometry.reset(tabCount);
+		for (int i = 0; i < tabCount; i++) {
+			mTitleWidths[i] = 40 + random.nextInt(120);
+			mWidths[i] = (int) mTitleWidths[i] + 60;
+			mGeometry.setWidth(i, mWidths[i]);
+		}
+		mHitXs = new int[1024];
+		for (int i = 0; i < mHitXs.length; i++) {
+			mHitXs[i] = random.nextInt(mGeometry.getTotalWidth());
+		}
+	}
+
+	/**
+	 * 数据更新时重新计算所有tab的位置
+	 */
+	@Benchmark
+	public int layoutGeometry() {
+		mGeometry.reset(tabCount);
+		for (int i = 0; i < tabCount; i++) {
+			mGeometry.setWidth(i, mWidths[i]);
+		}
+		return mGeometry.getTotalWidth();
+	}
+
+	@Benchmark
+	public int hitTest() {
+		mHit = (mHit + 1) & (mHitXs.length - 1);
+		return mGeometry.hitTest(mHitXs[mHit]);
+	}
+
+	/**
+	 * 一帧的指示器和居中滚动计算
+	 */
+	@Benchmark
+	public int indicatorFrame() {
+		int current = nextTab();
+		float offset = nextOffset();
+		float nextTitleWidth = current < tabCount - 1 ? mTitleWidths[current + 1] : 0;
+		TabStripMath.calcIndicator(mGeometry, current, offset, true,
+				mTitleWidths[current], nextTitleWidth, -1, mBounds);
+		return TabStripMath.calcCenterScrollX(mGeometry, current, offset, mBounds, 1080, 0);
+	}
+
+	/**
+	 * 一帧的滑动方向判断和标题颜色字号查表
+	 */
+	@Benchmark
+	public void swipeFrame(TransitionState transition, Blackhole blackhole) {
+		int current = nextTab();
+		float offset = nextOffset();
+		int pixels = (int) (offset * mWidths[current]);
+		int direction = mSwipeTracker.onPageScrolled(current, pixels);
+		float fraction = direction == SwipeTracker.TOWARD_PREVIOUS ? 1 - offset : offset;
+		blackhole.consume(direction);
+		blackhole.consume(transition.curve.enterColor(fraction));
+		blackhole.consume(transition.curve.leaveColor(fraction));
+		blackhole.consume(transition.curve.enterSize(fraction));
+		blackhole.consume(transition.curve.leaveSize(fraction));
+	}
+
+	private int nextTab() {
+		mStep++;
+		if (mStep >= tabCount * STEPS_PER_TAB) {
+			mStep = 0;
+		}
+		return mStep / STEPS_PER_TAB;
+	}
+
+	private float nextOffset() {
+		return (float) (mStep % STEPS_PER_TAB) / STEPS_PER_TAB;
+	}
+
+	@State(Scope.Thread)
+	public static class TransitionState {
+
+		TransitionCurve curve;
+
+		@Setup
+		public void setup() {
+			curve = new TransitionCurve(0xFF000000, 0xFF999999, 18, 14,
+					TransitionCurve.EASE_IN_OUT, TransitionCurve.COLOR_SPACE_OKLAB);
+		}
+	}
+}
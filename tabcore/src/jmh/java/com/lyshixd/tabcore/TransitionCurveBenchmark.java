@@ -0,0 +1,28 @@
+package com.lyshixd.tabcore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *@Description: 修改标题颜色、字号或缓动函数后重建过渡曲线的耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransitionCurveBenchmark {
+
+	@Param({"0", "1"})
+	public int colorSpace;
+
+	@Benchmark
+	public TransitionCurve build() {
+		return new TransitionCurve(0xFF000000, 0xFF999999, 18, 14, TransitionCurve.EASE_IN_OUT, colorSpace);
+	}
+}
@@ -0,0 +1,18 @@
+package com.lyshixd.tabcore;
+
+/**
+ *@Description: 指示器位置的计算结果，每帧复用同一个对象
+ */
+public class IndicatorBounds {
+
+	//当前滑动位置处tab的左右边界
+	public int tabLeft;
+	public int tabRight;
+	//指示器的左右边界
+	public int indicatorLeft;
+	public int indicatorRight;
+
+	public int getTabWidth() {
+		return tabRight - tabLeft;
+	}
+}
@@ -0,0 +1,51 @@
+package com.lyshixd.tabcore;
+
+/**
+ *@Description: 根据ViewPager的滑动回调判断目标tab是上一个还是下一个
+ */
+public class SwipeTracker {
+
+	//无需处理
+	public static final int NONE = 0;
+	//滑动停止，选中position
+	public static final int SETTLED = 1;
+	//从选中的tab滑向下一个
+	public static final int TOWARD_NEXT = 2;
+	//从选中的tab滑向上一个
+	public static final int TOWARD_PREVIOUS = 3;
+
+	//滑动或者点击时之前选中的tab
+	private int mChosenPosition;
+
+	/**
+	 * @param position 滑动时vp给的position
+	 * @param positionOffsetPixels 滑动像素
+	 * @return NONE, SETTLED, TOWARD_NEXT或TOWARD_PREVIOUS
+	 */
+	public int onPageScrolled(int position, int positionOffsetPixels) {
+		if (positionOffsetPixels == 0) {
+			mChosenPosition = position;
+			return SETTLED;
+		}
+		if (mChosenPosition == position) {
+			return TOWARD_NEXT;
+		}
+		if (mChosenPosition == position + 1) {
+			return TOWARD_PREVIOUS;
+		}
+		if (mChosenPosition == position + 2) {
+			mChosenPosition = position + 1;
+		} else if (mChosenPosition == position - 1) {
+			mChosenPosition = position;
+		}
+		return NONE;
+	}
+
+	public int getChosenPosition() {
+		return mChosenPosition;
+	}
+
+	public void setChosenPosition(int position) {
+		this.mChosenPosition = position;
+	}
+}
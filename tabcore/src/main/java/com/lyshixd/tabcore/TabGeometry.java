@@ -0,0 +1,111 @@
+package com.lyshixd.tabcore;
+
+/**
+ *@Description: tab位置表，保存每个tab的left和宽度(left为宽度的前缀和)。
+ * 定位时直接读取数组，根据x查找tab时使用二分查找
+ */
+public class TabGeometry {
+
+	private int[] mLefts = new int[0];
+	private int[] mWidths = new int[0];
+	private int mCount;
+
+	/**
+	 * 按tab数量重置，已有的数据不保证保留
+	 */
+	public void reset(int count) {
+		if (mLefts.length < count) {
+			mLefts = new int[count];
+			mWidths = new int[count];
+		}
+		mCount = count;
+	}
+
+	/**
+	 * 按顺序设置第position个tab的宽度，left为之前所有tab宽度之和
+	 */
+	public void setWidth(int position, int width) {
+		mLefts[position] = position == 0 ? 0 : mLefts[position - 1] + mWidths[position - 1];
+		mWidths[position] = width;
+	}
+
+	/**
+	 * 修改从positionStart开始的itemCount个tab的宽度，范围内按顺序重新计算left，之后的tab整体平移，
+	 * 范围的总宽度不变时(固定宽度、等分)之后的tab不需要改动
+	 * @return 是否有tab的宽度发生变化
+	 */
+	public boolean replaceWidths(int positionStart, int[] widths, int itemCount) {
+		int end = positionStart + itemCount;
+		int oldRight = mLefts[end - 1] + mWidths[end - 1];
+		boolean isChanged = false;
+		for (int i = 0; i < itemCount; i++) {
+			isChanged |= mWidths[positionStart + i] != widths[i];
+			setWidth(positionStart + i, widths[i]);
+		}
+		int delta = mLefts[end - 1] + mWidths[end - 1] - oldRight;
+		if (delta != 0) {
+			for (int i = end; i < mCount; i++) {
+				mLefts[i] += delta;
+			}
+		}
+		return isChanged;
+	}
+
+	/**
+	 * 直接设置tab的left和宽度，用于读取实际布局结果
+	 */
+	public void set(int position, int left, int width) {
+		mLefts[position] = left;
+		mWidths[position] = width;
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	/**
+	 * 尚未计算或布局的tab返回0，与未布局的view一致
+	 */
+	public int getLeft(int position) {
+		return position < mCount ? mLefts[position] : 0;
+	}
+
+	public int getWidth(int position) {
+		return position < mCount ? mWidths[position] : 0;
+	}
+
+	public int getRight(int position) {
+		return getLeft(position) + getWidth(position);
+	}
+
+	public int getTotalWidth() {
+		return mCount == 0 ? 0 : getRight(mCount - 1);
+	}
+
+	/**
+	 * 二分查找x所在的tab，x超出范围时返回最近的tab
+	 */
+	public int indexAt(int x) {
+		int low = 0;
+		int high = mCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (mLefts[mid] <= x) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * 点击位置所在的tab，不在任何tab上时返回-1
+	 */
+	public int hitTest(int x) {
+		if (mCount == 0 || x < 0 || x >= getTotalWidth()) {
+			return -1;
+		}
+		return indexAt(x);
+	}
+}
@@ -0,0 +1,91 @@
+package com.lyshixd.tabcore;
+
+/**
+ *@Description: 滑动时每帧执行的位置计算：指示器位置和居中滚动距离。
+ * 不依赖Android，可以在JVM上直接做基准测试
+ */
+public final class TabStripMath {
+
+	private TabStripMath() {
+	}
+
+	/**
+	 * 计算指示器位置，在当前tab和下一个tab之间按偏移量插值
+	 * @param geometry tab位置表
+	 * @param currentTab 当前tab
+	 * @param offset 滑向下一个tab的偏移量[0,1)
+	 * @param widthEqualTitle 指示器宽度是否与标题文字相同
+	 * @param currentTitleWidth 当前tab的标题宽度，widthEqualTitle为false时不使用
+	 * @param nextTitleWidth 下一个tab的标题宽度，widthEqualTitle为false时不使用
+	 * @param indicatorWidth 指示器固定宽度，小于0时不固定
+	 * @param out 计算结果
+	 */
+	public static void calcIndicator(TabGeometry geometry, int currentTab, float offset,
+			boolean widthEqualTitle, float currentTitleWidth, float nextTitleWidth,
+			float indicatorWidth, IndicatorBounds out) {
+		int tabCount = geometry.getCount();
+		int currentTabWidth = geometry.getWidth(currentTab);
+		float left = geometry.getLeft(currentTab);
+		float right = left + currentTabWidth;
+		float margin = 0;
+
+		if (widthEqualTitle) {
+			margin = (right - left - currentTitleWidth) / 2;
+		}
+
+		// 如果不到最后一个,配置下一个tab
+		if (currentTab < tabCount - 1) {
+			int nextTabWidth = geometry.getWidth(currentTab + 1);
+			float nextTabLeft = geometry.getLeft(currentTab + 1);
+			float nextTabRight = nextTabLeft + nextTabWidth;
+
+			left = left + offset * (nextTabLeft - left);
+			right = right + offset * (nextTabRight - right);
+
+			if (widthEqualTitle) {
+				margin = margin + offset * (nextTitleWidth - margin);
+			}
+		}
+
+		out.indicatorLeft = (int) left;
+		out.indicatorRight = (int) right;
+		if (widthEqualTitle) {
+			out.indicatorLeft = (int) (left + margin - 1);
+			out.indicatorRight = (int) (right - margin - 1);
+		}
+
+		out.tabLeft = (int) left;
+		out.tabRight = (int) right;
+
+		if (indicatorWidth >= 0) {
+			float indicatorLeft = geometry.getLeft(currentTab) + (currentTabWidth - indicatorWidth) / 2;
+			if (currentTab < tabCount - 1) {
+				indicatorLeft = indicatorLeft
+						+ offset
+						* ((float) currentTabWidth / 2 + (float) geometry.getWidth(currentTab + 1) / 2);
+			}
+			out.indicatorLeft = (int) indicatorLeft;
+			out.indicatorRight = (int) (out.indicatorLeft + indicatorWidth);
+		}
+	}
+
+	/**
+	 * 计算使当前滑动位置居中的滚动距离
+	 * @param bounds 同一位置calcIndicator的结果
+	 * @param viewportWidth 可见宽度
+	 * @param paddingLeft 左内边距
+	 */
+	public static int calcCenterScrollX(TabGeometry geometry, int currentTab, float offset,
+			IndicatorBounds bounds, int viewportWidth, int paddingLeft) {
+		// 平移距离
+		int offsetDistance = (int) (offset * geometry.getWidth(currentTab));
+		//当前Tab的left+当前Tab的Width
+		int scrollX = geometry.getLeft(currentTab) + offsetDistance;
+		if (currentTab > 0 || offsetDistance > 0) {
+			//移动到当前tab,并居中
+			scrollX -= viewportWidth / 2 - paddingLeft;
+			scrollX += bounds.getTabWidth() / 2;
+		}
+		return scrollX;
+	}
+}
@@ -0,0 +1,184 @@
+package com.lyshixd.tabcore;
+
+/**
+ *@Description: 标题选中/未选中之间的过渡曲线。
+ * 创建时按缓动函数预先计算好颜色和字号的查找表，滑动时只需按偏移量查表。
+ * 颜色可以逐通道在sRGB中插值，也可以在OKLab感知色彩空间中插值，后者中间色的亮度变化更均匀
+ */
+public class TransitionCurve {
+
+	/**
+	 * 缓动函数，输入和输出都在[0,1]
+	 */
+	public interface Easing {
+		float ease(float fraction);
+	}
+
+	public static final Easing LINEAR = new Easing() {
+		@Override
+		public float ease(float fraction) {
+			return fraction;
+		}
+	};
+
+	public static final Easing EASE_IN_OUT = new Easing() {
+		@Override
+		public float ease(float fraction) {
+			return fraction * fraction * (3 - 2 * fraction);
+		}
+	};
+
+	//逐通道在sRGB中插值
+	public static final int COLOR_SPACE_SRGB = 0;
+	//在OKLab感知色彩空间中插值
+	public static final int COLOR_SPACE_OKLAB = 1;
+
+	//查找表的分段数
+	private static final int STEPS = 128;
+
+	//未选中 -> 选中
+	private final int[] mEnterColors = new int[STEPS + 1];
+	private final float[] mEnterSizes = new float[STEPS + 1];
+	//选中 -> 未选中
+	private final int[] mLeaveColors = new int[STEPS + 1];
+	private final float[] mLeaveSizes = new float[STEPS + 1];
+
+	/**
+	 * @param selectColor 选中颜色
+	 * @param unSelectColor 未选中颜色
+	 * @param selectSize 选中字号
+	 * @param unSelectSize 未选中字号
+	 * @param easing 缓动函数
+	 * @param colorSpace 颜色插值空间，COLOR_SPACE_SRGB或COLOR_SPACE_OKLAB
+	 */
+	public TransitionCurve(int selectColor, int unSelectColor, float selectSize, float unSelectSize,
+			Easing easing, int colorSpace) {
+		if (easing == null) {
+			easing = LINEAR;
+		}
+		for (int i = 0; i <= STEPS; i++) {
+			float fraction = easing.ease((float) i / STEPS);
+			mEnterColors[i] = blend(unSelectColor, selectColor, fraction, colorSpace);
+			mLeaveColors[i] = blend(selectColor, unSelectColor, fraction, colorSpace);
+			mEnterSizes[i] = unSelectSize + (selectSize - unSelectSize) * fraction;
+			mLeaveSizes[i] = selectSize + (unSelectSize - selectSize) * fraction;
+		}
+	}
+
+	/**
+	 * 从未选中过渡到选中，进度为fraction时的颜色
+	 */
+	public int enterColor(float fraction) {
+		return mEnterColors[index(fraction)];
+	}
+
+	/**
+	 * 从选中过渡到未选中，进度为fraction时的颜色
+	 */
+	public int leaveColor(float fraction) {
+		return mLeaveColors[index(fraction)];
+	}
+
+	/**
+	 * 从未选中过渡到选中，进度为fraction时的字号
+	 */
+	public float enterSize(float fraction) {
+		return mEnterSizes[index(fraction)];
+	}
+
+	/**
+	 * 从选中过渡到未选中，进度为fraction时的字号
+	 */
+	public float leaveSize(float fraction) {
+		return mLeaveSizes[index(fraction)];
+	}
+
+	private static int index(float fraction) {
+		int index = (int) (fraction * STEPS + 0.5f);
+		if (index < 0) {
+			return 0;
+		}
+		return index > STEPS ? STEPS : index;
+	}
+
+	private static int blend(int fromColor, int toColor, float fraction, int colorSpace) {
+		if (colorSpace == COLOR_SPACE_OKLAB) {
+			return blendOklab(fromColor, toColor, fraction);
+		}
+		int a = alpha(fromColor) + (int) ((alpha(toColor) - alpha(fromColor)) * fraction);
+		int r = red(fromColor) + (int) ((red(toColor) - red(fromColor)) * fraction);
+		int g = green(fromColor) + (int) ((green(toColor) - green(fromColor)) * fraction);
+		int b = blue(fromColor) + (int) ((blue(toColor) - blue(fromColor)) * fraction);
+		return argb(a, r, g, b);
+	}
+
+	private static int blendOklab(int fromColor, int toColor, float fraction) {
+		double[] from = toOklab(fromColor);
+		double[] to = toOklab(toColor);
+		double l = from[0] + (to[0] - from[0]) * fraction;
+		double m = from[1] + (to[1] - from[1]) * fraction;
+		double s = from[2] + (to[2] - from[2]) * fraction;
+		int alpha = alpha(fromColor) + Math.round((alpha(toColor) - alpha(fromColor)) * fraction);
+		return fromOklab(alpha, l, m, s);
+	}
+
+	private static double[] toOklab(int color) {
+		double r = toLinear(red(color) / 255.0);
+		double g = toLinear(green(color) / 255.0);
+		double b = toLinear(blue(color) / 255.0);
+
+		double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+		double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+		double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+
+		return new double[]{
+				0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s,
+				1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s,
+				0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s
+		};
+	}
+
+	private static int fromOklab(int alpha, double lightness, double a, double b) {
+		double l = lightness + 0.3963377774 * a + 0.2158037573 * b;
+		double m = lightness - 0.1055613458 * a - 0.0638541728 * b;
+		double s = lightness - 0.0894841775 * a - 1.2914855480 * b;
+		l = l * l * l;
+		m = m * m * m;
+		s = s * s * s;
+
+		double r = 4.0767416621 * l - 3.3077115913 * m + 0.2309699292 * s;
+		double g = -1.2684380046 * l + 2.6097574011 * m - 0.3413193965 * s;
+		double bl = -0.0041960863 * l - 0.7034186147 * m + 1.7076147010 * s;
+		return argb(alpha, toChannel(r), toChannel(g), toChannel(bl));
+	}
+
+	private static double toLinear(double channel) {
+		return channel <= 0.04045 ? channel / 12.92 : Math.pow((channel + 0.055) / 1.055, 2.4);
+	}
+
+	private static int toChannel(double linear) {
+		double srgb = linear <= 0.0031308 ? linear * 12.92 : 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+		int channel = (int) Math.round(srgb * 255);
+		return channel < 0 ? 0 : (channel > 255 ? 255 : channel);
+	}
+
+	private static int alpha(int color) {
+		return color >>> 24;
+	}
+
+	private static int red(int color) {
+		return (color >> 16) & 0xFF;
+	}
+
+	private static int green(int color) {
+		return (color >> 8) & 0xFF;
+	}
+
+	private static int blue(int color) {
+		return color & 0xFF;
+	}
+
+	private static int argb(int alpha, int red, int green, int blue) {
+		return (alpha << 24) | (red << 16) | (green << 8) | blue;
+	}
+}
@@ -0,0 +1,45 @@
+package com.lyshixd.tabcore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *@Description: 按页加载标题后只替换一段tab的宽度，之后的tab整体平移
+ */
+public class TabGeometryTest {
+
+	private final TabGeometry mGeometry = new TabGeometry();
+
+	@Before
+	public void setUp() {
+		mGeometry.reset(6);
+		for (int i = 0; i < 6; i++) {
+			mGeometry.setWidth(i, 100);
+		}
+	}
+
+	@Test
+	public void replaceWidthsShiftsFollowingTabs() {
+		assertTrue(mGeometry.replaceWidths(2, new int[]{150, 80}, 2));
+
+		assertEquals(200, mGeometry.getLeft(2));
+		assertEquals(350, mGeometry.getLeft(3));
+		assertEquals(80, mGeometry.getWidth(3));
+		assertEquals(430, mGeometry.getLeft(4));
+		assertEquals(530, mGeometry.getLeft(5));
+		assertEquals(630, mGeometry.getTotalWidth());
+		assertEquals(4, mGeometry.indexAt(450));
+	}
+
+	@Test
+	public void replaceSameWidthsKeepsPositions() {
+		assertFalse(mGeometry.replaceWidths(4, new int[]{100, 100}, 2));
+
+		assertEquals(500, mGeometry.getLeft(5));
+		assertEquals(600, mGeometry.getTotalWidth());
+	}
+}
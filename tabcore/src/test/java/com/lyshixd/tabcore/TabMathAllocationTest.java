@@ -0,0 +1,97 @@
+package com.lyshixd.tabcore;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *@Description: 模拟一次从第一个tab滑到最后一个tab，只覆盖tabcore中每帧执行的纯计算(方向判断、指示器和居中计算、过渡查表)，
+ * 不经过view和ViewPager回调，这些计算不能分配内存。用线程分配字节数统计，预热后整段滑动的分配量超过预算即失败。
+ * 真实滑动回调的分配测试见tablayout的SlidingTabLayoutMetricsTest.swipeCallbacksStayWithinAllocationBudget，预算为每帧8字节
+ */
+public class TabMathAllocationTest {
+
+	private static final int TAB_COUNT = 200;
+	private static final int STEPS_PER_TAB = 32;
+	//整段滑动允许的分配字节数，只留给统计本身的误差，每帧分配一个对象就会超出
+	private static final long ALLOCATION_BUDGET_BYTES = 1024;
+
+	private final TabGeometry mGeometry = new TabGeometry();
+	private final IndicatorBounds mBounds = new IndicatorBounds();
+	private final SwipeTracker mSwipeTracker = new SwipeTracker();
+	private final float[] mTitleWidths = new float[TAB_COUNT];
+	private TransitionCurve mCurve;
+	//防止计算结果被优化掉
+	private long mSink;
+
+	@Before
+	public void setUp() {
+		Random random = new Random(42);
+		mGeometry.reset(TAB_COUNT);
+		for (int i = 0; i < TAB_COUNT; i++) {
+			mTitleWidths[i] = 40 + random.nextInt(120);
+			mGeometry.setWidth(i, (int) mTitleWidths[i] + 60);
+		}
+		mCurve = new TransitionCurve(0xFF000000, 0xFF999999, 18, 14,
+				TransitionCurve.EASE_IN_OUT, TransitionCurve.COLOR_SPACE_SRGB);
+	}
+
+	@Test
+	public void tabMathDoesNotAllocate() {
+		com.sun.management.ThreadMXBean threadBean = getThreadBean();
+		long threadId = Thread.currentThread().getId();
+		//预热，避免类加载和编译的分配计入
+		for (int i = 0; i < 20; i++) {
+			swipe();
+		}
+
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		swipe();
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		assertTrue("Swipe allocated " + allocated + " bytes", allocated <= ALLOCATION_BUDGET_BYTES);
+	}
+
+	@Test
+	public void swipeSettlesOnLastTab() {
+		swipe();
+		assertEquals(TAB_COUNT - 1, mSwipeTracker.getChosenPosition());
+	}
+
+	/**
+	 * 按ViewPager的回调顺序从第一页滑到最后一页，每帧做方向判断、指示器和居中计算以及过渡查表
+	 */
+	private void swipe() {
+		mSwipeTracker.setChosenPosition(0);
+		for (int position = 0; position < TAB_COUNT - 1; position++) {
+			int tabWidth = mGeometry.getWidth(position);
+			for (int step = 0; step < STEPS_PER_TAB; step++) {
+				float offset = (float) step / STEPS_PER_TAB;
+				int direction = mSwipeTracker.onPageScrolled(position, (int) (offset * tabWidth));
+				float fraction = direction == SwipeTracker.TOWARD_PREVIOUS ? 1 - offset : offset;
+				TabStripMath.calcIndicator(mGeometry, position, offset, true,
+						mTitleWidths[position], mTitleWidths[position + 1], -1, mBounds);
+				mSink += TabStripMath.calcCenterScrollX(mGeometry, position, offset, mBounds, 1080, 0);
+				mSink += mCurve.enterColor(fraction) + mCurve.leaveColor(fraction);
+				mSink += (long) (mCurve.enterSize(fraction) + mCurve.leaveSize(fraction));
+				mSink += mGeometry.hitTest(mBounds.tabLeft);
+			}
+		}
+		mSwipeTracker.onPageScrolled(TAB_COUNT - 1, 0);
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		return threadBean;
+	}
+}
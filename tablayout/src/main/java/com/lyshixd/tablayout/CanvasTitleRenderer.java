@@ -0,0 +1,139 @@
+package com.lyshixd.tablayout;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import com.lyshixd.tabcore.TabGeometry;
+import com.lyshixd.tabcore.TransitionCurve;
+
+/**
+ *@Description: 绘制模式下的标题绘制。只画可见范围内的标题，过渡中的两个tab按过渡曲线取颜色和字号，
+ * 画笔字号固定为布局字号，其余字号通过缩放画布实现。样式在标题样式或颜色变化后清除，绘制前重新设置
+ */
+class CanvasTitleRenderer {
+
+	/**
+	 * 按位置读取标题，按页加载时尚未加载的标题返回null
+	 */
+	interface TitleSource {
+		CharSequence getTitle(int position);
+	}
+
+	private final TabGeometry mGeometry;
+	private final TitleSource mTitleSource;
+	//与tab标题TextView的画笔设置相同，为null表示样式需要重新设置
+	private TextPaint mPaint;
+	private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+	private float mTextSelectSize;
+	private float mTextUnSelectSize;
+	private int mTextSelectColor;
+	private int mTextUnSelectColor;
+	private int mTextBold;
+	//正在过渡的两个tab及过渡进度
+	private int mTransitionFrom = -1;
+	private int mTransitionTo = -1;
+	private float mTransitionFraction;
+
+	CanvasTitleRenderer(TabGeometry geometry, TitleSource titleSource) {
+		this.mGeometry = geometry;
+		this.mTitleSource = titleSource;
+	}
+
+	boolean hasStyle() {
+		return mPaint != null;
+	}
+
+	/**
+	 * @param titlePaint tab标题TextView的画笔，复制后使用
+	 */
+	void setStyle(TextPaint titlePaint, int textSizeType, float textSelectSize, float textUnSelectSize,
+			int textSelectColor, int textUnSelectColor, int textBold, DisplayMetrics metrics) {
+		mTextSelectSize = textSelectSize;
+		mTextUnSelectSize = textUnSelectSize;
+		mTextSelectColor = textSelectColor;
+		mTextUnSelectColor = textUnSelectColor;
+		mTextBold = textBold;
+		mPaint = new TextPaint(titlePaint);
+		mPaint.setTextAlign(Paint.Align.CENTER);
+		mPaint.setTextSize(TypedValue.applyDimension(textSizeType, getLayoutTextSize(), metrics));
+		mPaint.getFontMetrics(mFontMetrics);
+	}
+
+	void clearStyle() {
+		mPaint = null;
+	}
+
+	void setTransition(int from, int to, float fraction) {
+		mTransitionFrom = from;
+		mTransitionTo = to;
+		mTransitionFraction = fraction;
+	}
+
+	void resetTransition() {
+		mTransitionFrom = -1;
+		mTransitionTo = -1;
+	}
+
+	/**
+	 * 绘制内容坐标[start, start + viewportWidth]范围内的标题，需要先设置样式
+	 * @param chosen 选中的tab，不在过渡中时按选中样式绘制
+	 * @param originX 内容坐标0在画布上的位置
+	 * @param centerY 标题的垂直中心
+	 */
+	void draw(Canvas canvas, TransitionCurve curve, int chosen, int start, int viewportWidth, float originX, float centerY) {
+		TextPaint paint = mPaint;
+		float layoutSize = getLayoutTextSize();
+		//标题在tab内居中，与TextView包裹内容并居中时的基线一致
+		float baseline = centerY - (mFontMetrics.top + mFontMetrics.bottom) / 2;
+		int first = mGeometry.indexAt(start);
+		int last = mGeometry.indexAt(start + viewportWidth);
+		for (int i = first; i <= last; i++) {
+			CharSequence title = mTitleSource.getTitle(i);
+			if (TextUtils.isEmpty(title)) {
+				continue;
+			}
+			float textSize;
+			int color;
+			boolean isBold;
+			if (i == mTransitionFrom) {
+				textSize = curve.leaveSize(mTransitionFraction);
+				color = curve.leaveColor(mTransitionFraction);
+				//设定滑动50%开始改变粗体
+				isBold = mTransitionFraction <= 0.5f;
+			} else if (i == mTransitionTo) {
+				textSize = curve.enterSize(mTransitionFraction);
+				color = curve.enterColor(mTransitionFraction);
+				isBold = mTransitionFraction > 0.5f;
+			} else {
+				boolean isSelect = i == chosen;
+				textSize = isSelect ? mTextSelectSize : mTextUnSelectSize;
+				color = isSelect ? mTextSelectColor : mTextUnSelectColor;
+				isBold = isSelect;
+			}
+			if (mTextBold != SlidingTabLayout.TEXT_BOLD_SELCET) {
+				isBold = mTextBold == SlidingTabLayout.TEXT_BOLD_BOTH;
+			}
+			paint.setColor(color);
+			paint.setFakeBoldText(isBold);
+
+			float centerX = originX + mGeometry.getLeft(i) + mGeometry.getWidth(i) / 2f;
+			float scale = layoutSize > 0 ? textSize / layoutSize : 1f;
+			if (scale == 1f) {
+				canvas.drawText(title, 0, title.length(), centerX, baseline, paint);
+			} else {
+				int saveCount = canvas.save();
+				canvas.scale(scale, scale, centerX, centerY);
+				canvas.drawText(title, 0, title.length(), centerX, baseline, paint);
+				canvas.restoreToCount(saveCount);
+			}
+		}
+	}
+
+	private float getLayoutTextSize() {
+		return Math.max(mTextSelectSize, mTextUnSelectSize);
+	}
+}
@@ -0,0 +1,159 @@
+package com.lyshixd.tablayout;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.view.animation.DecelerateInterpolator;
+
+import com.lyshixd.tabcore.IndicatorBounds;
+
+/**
+ *@Description: 跨页跳转动画。指示器和滚动位置从起点插值到终点，只有起点和终点两个标题做过渡；
+ * ViewPager平滑滚动时等它停止后才结束。只能在主线程使用
+ */
+class JumpAnimator {
+
+	/**
+	 * 跳转的回调，在主线程调用
+	 */
+	interface Callback {
+		/**
+		 * 动画的每一帧，插值后的位置通过interpolate和getScrollX读取
+		 */
+		void onJumpUpdate(int from, int to, float fraction);
+
+		/**
+		 * 动画结束且ViewPager已停止，需要回到ViewPager的真实位置
+		 */
+		void onJumpEnd();
+	}
+
+	private static final long JUMP_DURATION = 250;
+
+	private final Callback mCallback;
+	//跳转中，忽略ViewPager的滑动回调
+	private boolean mIsRunning;
+	//ViewPager平滑滚动尚未停止
+	private boolean mIsPagerSettling;
+	private ValueAnimator mAnimator;
+	private int mFrom;
+	private int mTo;
+	private int mStartScrollX;
+	private int mEndScrollX;
+	private float mFraction;
+	private final IndicatorBounds mStartBounds = new IndicatorBounds();
+	private final IndicatorBounds mEndBounds = new IndicatorBounds();
+
+	JumpAnimator(Callback callback) {
+		this.mCallback = callback;
+	}
+
+	/**
+	 * 开始跳转，正在进行的跳转直接停止，不回调onJumpEnd
+	 * @param isPagerSettling ViewPager是否平滑滚动，是则等onPagerIdle后再结束
+	 */
+	void start(int from, int to, IndicatorBounds startBounds, IndicatorBounds endBounds,
+			int startScrollX, int endScrollX, boolean isPagerSettling) {
+		cancel();
+		copyBounds(startBounds, mStartBounds);
+		copyBounds(endBounds, mEndBounds);
+		mStartScrollX = startScrollX;
+		mEndScrollX = endScrollX;
+		mFrom = from;
+		mTo = to;
+		mFraction = 0;
+		mIsRunning = true;
+		mIsPagerSettling = isPagerSettling;
+
+		final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+		animator.setDuration(JUMP_DURATION);
+		animator.setInterpolator(new DecelerateInterpolator());
+		animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+			@Override
+			public void onAnimationUpdate(ValueAnimator animation) {
+				if (animation != mAnimator) {
+					return;
+				}
+				mFraction = animation.getAnimatedFraction();
+				mCallback.onJumpUpdate(mFrom, mTo, mFraction);
+			}
+		});
+		animator.addListener(new AnimatorListenerAdapter() {
+			@Override
+			public void onAnimationEnd(Animator animation) {
+				if (animation != mAnimator) {
+					return;
+				}
+				mAnimator = null;
+				//平滑滚动时等ViewPager停止后再结束
+				if (!mIsPagerSettling) {
+					mCallback.onJumpEnd();
+				}
+			}
+		});
+		mAnimator = animator;
+		animator.start();
+	}
+
+	/**
+	 * ViewPager停止滚动，动画已结束时结束跳转
+	 */
+	void onPagerIdle() {
+		if (!mIsPagerSettling) {
+			return;
+		}
+		mIsPagerSettling = false;
+		if (mAnimator == null) {
+			mCallback.onJumpEnd();
+		}
+	}
+
+	/**
+	 * 停止动画，不回调onJumpEnd
+	 */
+	void cancel() {
+		if (mAnimator != null) {
+			ValueAnimator animator = mAnimator;
+			mAnimator = null;
+			animator.cancel();
+		}
+		mIsRunning = false;
+		mIsPagerSettling = false;
+	}
+
+	boolean isRunning() {
+		return mIsRunning;
+	}
+
+	int getTo() {
+		return mTo;
+	}
+
+	/**
+	 * 当前进度下指示器的位置
+	 */
+	void interpolate(IndicatorBounds out) {
+		out.tabLeft = lerp(mStartBounds.tabLeft, mEndBounds.tabLeft, mFraction);
+		out.tabRight = lerp(mStartBounds.tabRight, mEndBounds.tabRight, mFraction);
+		out.indicatorLeft = lerp(mStartBounds.indicatorLeft, mEndBounds.indicatorLeft, mFraction);
+		out.indicatorRight = lerp(mStartBounds.indicatorRight, mEndBounds.indicatorRight, mFraction);
+	}
+
+	/**
+	 * 当前进度下的滚动位置
+	 */
+	int getScrollX() {
+		return lerp(mStartScrollX, mEndScrollX, mFraction);
+	}
+
+	private static void copyBounds(IndicatorBounds from, IndicatorBounds to) {
+		to.tabLeft = from.tabLeft;
+		to.tabRight = from.tabRight;
+		to.indicatorLeft = from.indicatorLeft;
+		to.indicatorRight = from.indicatorRight;
+	}
+
+	private static int lerp(int from, int to, float fraction) {
+		return from + (int) ((to - from) * fraction);
+	}
+}
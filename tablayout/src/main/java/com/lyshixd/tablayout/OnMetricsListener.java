@@ -0,0 +1,12 @@
+package com.lyshixd.tablayout;
+
+/**
+ *@Description: 耗时统计回调
+ */
+public interface OnMetricsListener {
+
+	/**
+	 * 滑动停止或数据更新后调用，读取后可以调用metrics.reset()清空
+	 */
+	void onMetricsReport(TabStripMetrics metrics);
+}
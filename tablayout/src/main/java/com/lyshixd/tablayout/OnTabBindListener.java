@@ -0,0 +1,15 @@
+package com.lyshixd.tablayout;
+
+/**
+ *@Description: 自定义tab布局的绑定回调
+ */
+public interface OnTabBindListener {
+
+	/**
+	 * tab绑定标题后调用，用于设置自定义布局中的图标、角标等。
+	 * 标题的文字和样式由SlidingTabLayout设置，不要在这里修改
+	 * @param holder tab的holder
+	 * @param position tab位置
+	 */
+	void onBindTab(TabHolder holder, int position);
+}
@@ -0,0 +1,226 @@
+package com.lyshixd.tablayout;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ *@Description: 按页加载的标题。只有可见范围附近的页会被请求，在后台线程读取，结果在主线程放入有限大小的缓存。
+ * 已测量过的标题宽度单独保存，页被淘汰后tab宽度不变。只能在主线程使用。
+ * 缓存以int页号为key，绘制中查找标题不装箱
+ */
+class PagedTitles {
+
+	/**
+	 * 页加载完成的回调，在主线程调用
+	 */
+	interface OnPageLoadedListener {
+		void onPageLoaded(int positionStart, int itemCount);
+	}
+
+	private final TabTitleProvider mProvider;
+	private final Executor mExecutor;
+	private final int mPageSize;
+	private final int mMaxPages;
+	private final SparseArray<CharSequence[]> mPages = new SparseArray<>();
+	//每页最近一次使用的序号，超出缓存大小时淘汰序号最小的页
+	private final SparseIntArray mPageStamps = new SparseIntArray();
+	private int mStamp;
+	//正在加载的页
+	private final SparseBooleanArray mLoadingPages = new SparseBooleanArray();
+	private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+	private OnPageLoadedListener mListener;
+	private int mCount;
+	//数据变化或释放后，之前发出的请求结果作废
+	private int mGeneration;
+
+	//每个tab已测量的文字宽度，小于0为尚未测量
+	private float[] mTextWidths = new float[0];
+	private float[] mTitleWidths = new float[0];
+
+	/**
+	 * @param pageSize 每页的标题数
+	 * @param maxPages 缓存的最大页数
+	 */
+	PagedTitles(TabTitleProvider provider, Executor executor, int pageSize, int maxPages) {
+		this.mProvider = provider;
+		this.mExecutor = executor;
+		this.mPageSize = pageSize;
+		this.mMaxPages = maxPages;
+	}
+
+	void setOnPageLoadedListener(OnPageLoadedListener listener) {
+		this.mListener = listener;
+	}
+
+	/**
+	 * 数据变化后按新的数量重置，已缓存的标题和宽度全部丢弃
+	 */
+	void reset(int count) {
+		mGeneration++;
+		mPages.clear();
+		mPageStamps.clear();
+		mLoadingPages.clear();
+		mCount = count;
+		if (mTextWidths.length < count) {
+			mTextWidths = new float[count];
+			mTitleWidths = new float[count];
+		}
+		clearWidths();
+	}
+
+	/**
+	 * 标题样式变化后已测量的宽度失效
+	 */
+	void clearWidths() {
+		Arrays.fill(mTextWidths, -1);
+		Arrays.fill(mTitleWidths, -1);
+	}
+
+	/**
+	 * 不再使用，之后加载完成的页不再回调
+	 */
+	void release() {
+		mGeneration++;
+		mListener = null;
+	}
+
+	/**
+	 * 已加载的标题，未加载时返回null，不会发出请求
+	 */
+	CharSequence peek(int position) {
+		CharSequence[] page = getPage(position / mPageSize);
+		return page == null ? null : page[position % mPageSize];
+	}
+
+	boolean isLoaded(int position) {
+		return getPage(position / mPageSize) != null;
+	}
+
+	/**
+	 * 取出缓存的页并记为最近使用
+	 */
+	private CharSequence[] getPage(int page) {
+		CharSequence[] titles = mPages.get(page);
+		if (titles != null) {
+			mPageStamps.put(page, ++mStamp);
+		}
+		return titles;
+	}
+
+	/**
+	 * 放入一页，超出缓存大小时淘汰最久未使用的页
+	 */
+	private void putPage(int page, CharSequence[] titles) {
+		mPages.put(page, titles);
+		mPageStamps.put(page, ++mStamp);
+		while (mPages.size() > mMaxPages) {
+			int eldest = 0;
+			for (int i = 1; i < mPageStamps.size(); i++) {
+				if (mPageStamps.valueAt(i) < mPageStamps.valueAt(eldest)) {
+					eldest = i;
+				}
+			}
+			mPages.remove(mPageStamps.keyAt(eldest));
+			mPageStamps.removeAt(eldest);
+		}
+	}
+
+	/**
+	 * 请求加载first到last之间的标题所在的页，已缓存或正在加载的页不会重复请求
+	 */
+	void request(int first, int last) {
+		if (mCount <= 0) {
+			return;
+		}
+		first = Math.max(0, first);
+		last = Math.min(mCount - 1, last);
+		for (int page = first / mPageSize; page <= last / mPageSize; page++) {
+			if (getPage(page) == null && !mLoadingPages.get(page)) {
+				loadPage(page);
+			}
+		}
+	}
+
+	/**
+	 * 在后台线程加载一页。加载失败(抛出异常或结果不完整)时页不会留在加载中，之后可以再次请求
+	 */
+	private void loadPage(final int page) {
+		mLoadingPages.put(page, true);
+		final int generation = mGeneration;
+		final int positionStart = page * mPageSize;
+		final int itemCount = Math.min(mPageSize, mCount - positionStart);
+		boolean isSubmitted = false;
+		try {
+			mExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					CharSequence[] titles = null;
+					try {
+						titles = mProvider.loadTitles(positionStart, itemCount);
+					}
+					finally {
+						onPageResult(page, generation, positionStart, itemCount, titles);
+					}
+				}
+			});
+			isSubmitted = true;
+		}
+		finally {
+			//线程池拒绝执行
+			if (!isSubmitted) {
+				mLoadingPages.delete(page);
+			}
+		}
+	}
+
+	/**
+	 * 在后台线程调用，结果切换到主线程处理，titles为null表示加载失败
+	 */
+	private void onPageResult(final int page, final int generation, final int positionStart, final int itemCount,
+							  final CharSequence[] titles) {
+		mMainHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				if (generation != mGeneration) {
+					return;
+				}
+				mLoadingPages.delete(page);
+				if (titles == null || titles.length < itemCount) {
+					return;
+				}
+				putPage(page, titles);
+				if (mListener != null) {
+					mListener.onPageLoaded(positionStart, itemCount);
+				}
+			}
+		});
+	}
+
+	boolean hasWidths(int position) {
+		return mTextWidths[position] >= 0;
+	}
+
+	/**
+	 * 保存测量结果
+	 * @param textWidth 按布局字号测量的宽度，决定tab宽度
+	 * @param titleWidth 按选中字号测量的宽度，指示器跟随标题宽度时使用
+	 */
+	void setWidths(int position, float textWidth, float titleWidth) {
+		mTextWidths[position] = textWidth;
+		mTitleWidths[position] = titleWidth;
+	}
+
+	float getTextWidth(int position) {
+		return mTextWidths[position];
+	}
+
+	float getTitleWidth(int position) {
+		return mTitleWidths[position];
+	}
+}
@@ -0,0 +1,102 @@
+package com.lyshixd.tablayout;
+
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.DisplayMetrics;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+import java.util.HashMap;
+
+/**
+ *@Description: 在后台线程预先计算好的标题排版结果和标题宽度。
+ * 排版参数与tab标题TextView选中、未选中时的参数一致时才能直接使用，否则退回普通的setText；
+ * 宽度直接由本对象提供，不放入容量有限的TitleWidthCache，标题再多也不会被淘汰
+ */
+class PrecomputedTitles {
+
+	//标题在宽度表中的位置，相同标题只记录第一个
+	private final HashMap<String, Integer> mIndexes = new HashMap<>();
+	private final PrecomputedTextCompat.Params mSelectParams;
+	private final PrecomputedTextCompat.Params mUnSelectParams;
+	private final HashMap<String, PrecomputedTextCompat> mSelectTexts = new HashMap<>();
+	private final HashMap<String, PrecomputedTextCompat> mUnSelectTexts;
+
+	//测量宽度使用的样式，查询时样式一致才使用
+	private final Typeface mTypeface;
+	private final int mTextSizeType;
+	private final boolean mBold;
+	private final float[] mTextSizes;
+	private final float[][] mWidths;
+
+	/**
+	 * 在当前线程计算，应在后台线程调用
+	 * @param textSizes 需要测量宽度的字号
+	 */
+	PrecomputedTitles(String[] titles, PrecomputedTextCompat.Params selectParams,
+			PrecomputedTextCompat.Params unSelectParams, TextPaint basePaint, float[] textSizes,
+			int textSizeType, boolean bold, DisplayMetrics metrics) {
+		this.mSelectParams = selectParams;
+		this.mUnSelectParams = unSelectParams;
+		this.mTypeface = basePaint.getTypeface();
+		this.mTextSizeType = textSizeType;
+		this.mBold = bold;
+		this.mTextSizes = textSizes;
+		this.mWidths = new float[textSizes.length][titles.length];
+
+		boolean sameParams = selectParams.equals(unSelectParams);
+		mUnSelectTexts = sameParams ? mSelectTexts : new HashMap<String, PrecomputedTextCompat>();
+		TextPaint paint = new TextPaint();
+		for (int i = 0; i < titles.length; i++) {
+			String title = titles[i];
+			if (TextUtils.isEmpty(title)) {
+				continue;
+			}
+			if (!mIndexes.containsKey(title)) {
+				mIndexes.put(title, i);
+			}
+			if (!mSelectTexts.containsKey(title)) {
+				mSelectTexts.put(title, PrecomputedTextCompat.create(title, selectParams));
+				if (!sameParams) {
+					mUnSelectTexts.put(title, PrecomputedTextCompat.create(title, unSelectParams));
+				}
+			}
+			for (int j = 0; j < textSizes.length; j++) {
+				mWidths[j][i] = TitleWidthCache.measureText(paint, basePaint, title, textSizes[j], textSizeType, bold, metrics);
+			}
+		}
+	}
+
+	/**
+	 * 取与TextView当前排版参数一致的预计算结果，没有时返回null
+	 */
+	PrecomputedTextCompat find(CharSequence title, PrecomputedTextCompat.Params params) {
+		if (title == null) {
+			return null;
+		}
+		if (mSelectParams.equals(params)) {
+			return mSelectTexts.get(title.toString());
+		}
+		if (mUnSelectParams.equals(params)) {
+			return mUnSelectTexts.get(title.toString());
+		}
+		return null;
+	}
+
+	/**
+	 * 取预先测量的宽度，样式不一致或标题没有测量过时返回-1
+	 */
+	float getWidth(CharSequence title, float textSize, int unit, Typeface typeface, boolean bold) {
+		if (unit != mTextSizeType || bold != mBold || typeface != mTypeface) {
+			return -1;
+		}
+		for (int j = 0; j < mTextSizes.length; j++) {
+			if (mTextSizes[j] == textSize) {
+				Integer index = mIndexes.get(title.toString());
+				return index == null ? -1 : mWidths[j][index];
+			}
+		}
+		return -1;
+	}
+}
@@ -1,49 +1,77 @@
 package com.lyshixd.tablayout;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
-import android.text.TextUtils;
+import android.os.SystemClock;
+import android.text.TextPaint;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.GestureDetector;
 import android.view.Gravity;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.HorizontalScrollView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.view.AccessibilityDelegateCompat;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.viewpager.widget.PagerAdapter;
 import androidx.viewpager.widget.ViewPager;
 
+import com.lyshixd.tabcore.IndicatorBounds;
+import com.lyshixd.tabcore.SwipeTracker;
+import com.lyshixd.tabcore.TabGeometry;
+import com.lyshixd.tabcore.TabStripMath;
+import com.lyshixd.tabcore.TransitionCurve;
+import com.lyshixd.tabview.TabItemView;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.OnPageChangeListener {
 
+	private static final String TAG = "SlidingTabLayout";
+
 	private Context mContext;
 	private ViewPager mViewPager;
 	//tab的容器
-	private LinearLayout mTabsContainer;
+	private TabContainer mTabsContainer;
 	//tab此类维护的title列表
 	private ArrayList<String> mTitles;
 	//当前tab数量
 	private int mTabCount;
 	//当前选中的tab
 	private int mCurrentTab;
+	//当前按选中样式显示的tab
+	private int mSelectedTab = -1;
+	//滑动过程中样式被改为中间状态的tab，选中时只恢复这些tab
+	private final ArrayList<TabHolder> mDirtyHolders = new ArrayList<>();
 	private float mCurrentPositionOffset;
 
 	/** 用于绘制显示器 */
 	private Rect mIndicatorRect = new Rect();
 	/** 用于实现滚动居中 */
 	private Rect mTabRect = new Rect();
+	private final IndicatorBounds mIndicatorBounds = new IndicatorBounds();
 
 	//viewpager是否平滑的移动到目标位置。当中间跨度过大时，设置false
 	private boolean mIsViewPagerSmoothScroll = false;
@@ -83,8 +111,104 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 	private int mIndicatorCenterColor;
 	private int mIndicatorEndColor;
 	private GradientDrawable mIndicatorDrawable = new GradientDrawable();
+	//显示指示器的子view，drawable作为背景。移动时只改变平移，尺寸变化时才重新布局，tab栏本身不需要重绘
+	private View mIndicatorView;
 	private int mIndicatorGravity;
 
+	/** 分批创建模式：view模式下同步只创建填满可见范围的tab，其余先用首尾两个占位view撑开位置，在主线程空闲时分批创建 */
+	private boolean mIsStagedTabs = false;
+	private StagedTabBuilder mStagedBuilder;
+
+	/** 虚拟化模式：只把可见范围内(加上两侧少量余量)的tab实例化为view，其余tab只保留计算出的位置 */
+	private boolean mIsVirtualized = false;
+	//每个tab的left和宽度，view模式下每次布局后从tab view读取，虚拟化和绘制模式下根据标题计算
+	private final TabGeometry mGeometry = new TabGeometry();
+	//虚拟化和绘制模式下根据标题计算出的标题文字宽度
+	private float[] mTitleWidths;
+	//虚拟化模式下已实例化的tab范围
+	private VirtualTabWindow mVirtualWindow;
+	//tab view复用池，默认每个实例独有，可通过setTabViewPool在多个实例间共享
+	private TabViewPool mTabViewPool = new TabViewPool();
+	//tab布局，自定义布局中需要包含id为tv_tab_title的TextView
+	private int mTabLayoutRes = R.layout.layout_tab;
+	private OnTabBindListener mTabBindListener;
+	//标题宽度缓存，每个tab绑定标题时测量一次，指示器计算时直接读取
+	private final TitleWidthCache mTitleWidthCache = new TitleWidthCache();
+	//与tab标题TextView相同设置的画笔，用于测量
+	private TextPaint mTitlePaint;
+	//上次测量时的系统字体缩放
+	private float mFontScale;
+	//标题颜色、字号的过渡曲线，样式变化后置空，使用时按需重新生成查找表
+	private TransitionCurve mTransitionCurve;
+	private TransitionCurve.Easing mTransitionEasing = TransitionCurve.LINEAR;
+	private int mTransitionColorSpace = TransitionCurve.COLOR_SPACE_SRGB;
+	/** 缩放模式：所有标题按较大的字号布局一次，滑动时只通过缩放改变视觉大小，不触发重新布局 */
+	private boolean mIsTextScaleMode = false;
+	/** 绘制模式：不创建任何tab view，可见范围内的标题直接在onDraw中绘制，点击位置通过tab位置二分查找 */
+	private boolean mIsCanvasMode = false;
+	//绘制模式下的标题绘制和过渡状态
+	private CanvasTitleRenderer mTitleRenderer;
+	//后台预先计算的标题排版结果，标题样式变化后失效
+	private PrecomputedTitles mPrecomputedTitles;
+	//每次预计算加一，只使用最后一次预计算的结果
+	private int mPremeasureGeneration;
+	//按页加载的标题，为null时标题来自mTitles或adapter
+	private PagedTitles mPagedTitles;
+	private static final int TITLE_PAGE_SIZE = 50;
+	private static final int MAX_TITLE_PAGES = 8;
+	//标题加载完成前按这个文字的宽度占位
+	private static final String PLACEHOLDER_TITLE = "\u3000\u3000\u3000\u3000";
+	/** 按帧合并模式：滑动回调只记录最新的位置和偏移，滚动、文字过渡和重绘在每帧的回调中只执行一次 */
+	private boolean mIsFrameCoalesced = false;
+	//已请求帧回调，等待执行
+	private boolean mIsFrameScheduled;
+	//在帧回调中执行的文字过渡，选中或停止时清除
+	private int mPendingTransitionFrom = -1;
+	private int mPendingTransitionTo = -1;
+	private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mIsFrameScheduled = false;
+			if (mIsFrameExtrapolated && mSampleCount > 0 && !applyFrameSample(frameTimeNanos)) {
+				//还在滑动，下一帧继续按vsync时间计算位置
+				scheduleFrame();
+			}
+			scrollToCurrentTab();
+			if (mPendingTransitionFrom >= 0) {
+				changeTextSize(mPendingTransitionFrom, mPendingTransitionTo);
+			}
+			invalidateTitles();
+		}
+	};
+
+	/** 按帧插值模式：记录最近的滑动回调，每帧按vsync时间插值或有限外推出位置后绘制，停止时回到真实位置 */
+	private boolean mIsFrameExtrapolated = false;
+	private static final int SAMPLE_SIZE = 4;
+	//最多外推的时间，超过后认为滑动已停下，回到最新的真实位置
+	private static final long MAX_EXTRAPOLATION_NANOS = 16000000L;
+	//(时间，位置+偏移)的环形缓存
+	private final long[] mSampleTimes = new long[SAMPLE_SIZE];
+	private final float[] mSampleValues = new float[SAMPLE_SIZE];
+	private int mSampleHead;
+	private int mSampleCount;
+	//最新一次回调的真实位置和偏移
+	private int mSamplePosition;
+	private float mSampleOffset;
+	//耗时统计，设置OnMetricsListener后开启，关闭时为null
+	private TabStripMetrics mMetrics;
+	private OnMetricsListener mMetricsListener;
+	//所有模式共用的点击处理，点击位置通过tab位置表二分查找
+	private GestureDetector mGestureDetector;
+	//点击的tab，在performClick中处理
+	private int mPendingClickPosition = -1;
+	//惯性滚动中最后一次滚动的时间，滚动中按下只停止滚动，不选中tab
+	private static final long FLING_STOP_TIMEOUT = 32;
+	private boolean mIsFlinging;
+	private long mLastFlingScrollTime;
+	private boolean mIsTapStoppingFling;
+	//tab view不再设置点击事件，由代理向无障碍服务提供点击操作
+	private AccessibilityDelegateCompat mTabAccessibilityDelegate;
+
 	public void setSelectListener(OnTabSelectListener selectListener) {
 		this.selectListener = selectListener;
 	}
@@ -93,20 +217,31 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 
 
 	public SlidingTabLayout(Context context) {
+		this(context, new TabStyle.Builder(context).build());
+	}
+
+	/**
+	 * 代码创建，样式由TabStyle.Builder生成
+	 */
+	public SlidingTabLayout(Context context, TabStyle style) {
 		super(context);
+		init(context, style);
 	}
 
 	public SlidingTabLayout(Context context, AttributeSet attrs) {
 		super(context, attrs);
-		init(context, attrs);
+		init(context, TabStyle.obtain(context, attrs));
 	}
 
 	public SlidingTabLayout(Context context, AttributeSet attrs, int defStyleAttr) {
 		super(context, attrs, defStyleAttr);
-		init(context, attrs);
+		init(context, TabStyle.obtain(context, attrs));
 	}
 
-	private void init(Context context, AttributeSet attrs) {
+	private void init(Context context, TabStyle style) {
+		if (style == null) {
+			throw new IllegalStateException("TabStyle can not be NULL !");
+		}
 		setHorizontalScrollBarEnabled(false);
 		setFillViewport(true);//设置滚动视图是否可以伸缩其内容以填充视口
 		setWillNotDraw(false);//重写onDraw方法,需要调用这个方法来清除flag
@@ -114,56 +249,119 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 		setClipToPadding(false);
 
 		this.mContext = context;
-		mTabsContainer = new LinearLayout(mContext);
+		mTabsContainer = new TabContainer(mContext);
 		addView(mTabsContainer);
-
-		obtainAttributes(context, attrs);
-
-		//获取布局设置的高度
-		String height  = attrs.getAttributeValue("http://schemas.android.com/apk/res/android", "layout_height");
-		//如果view高度是确定值
-		if (!height.equals(ViewGroup.LayoutParams.MATCH_PARENT + "") && !height.equals(ViewGroup.LayoutParams.WRAP_CONTENT + "")) {
-			int[] systemAttrs = {android.R.attr.height};
-			TypedArray typedArray = mContext.obtainStyledAttributes(attrs, systemAttrs);
-			mHeight = typedArray.getDimensionPixelSize(0, ViewGroup.LayoutParams.WRAP_CONTENT);
-			typedArray.recycle();
-		}
-
+		initModes();
+		//HorizontalScrollView的addView只允许一个子view，指示器不参与滚动范围的计算，布局由onLayout完成
+		mIndicatorView = new View(mContext);
+		mIndicatorView.setBackground(mIndicatorDrawable);
+		mIndicatorView.setImportantForAccessibility(IMPORTANT_FOR_ACCESSIBILITY_NO);
+		addViewInLayout(mIndicatorView, -1, new LayoutParams(0, 0), true);
+		//指示器画在tab下面
+		setChildrenDrawingOrderEnabled(true);
+
+		applyStyle(style);
+		updateIndicatorDrawable();
 	}
 
-	private void obtainAttributes(Context context, AttributeSet attrs) {
-		TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.SlidingTabLayout);
-
-		mTabWidth = ta.getDimension(R.styleable.SlidingTabLayout_sl_tab_width, dp2px(-1));
-		mIsTabWidthEqual = ta.getBoolean(R.styleable.SlidingTabLayout_sl_tab_width, false);
-		mTabPadding = ta.getDimension(R.styleable.SlidingTabLayout_sl_tab_padding, mIsTabWidthEqual || mTabWidth > 0 ? dp2px(0) : dp2px(10));
-
-
-		mTextBold = ta.getInt(R.styleable.SlidingTabLayout_sl_text_bold, TEXT_BOLD_NONE);
-		mTextSelectSize = ta.getInt(R.styleable.SlidingTabLayout_sl_text_select_size, 16);
-		mTextUnSelectSize = ta.getInt(R.styleable.SlidingTabLayout_sl_text_unselect_size, 12);
-		mTextSelectColor = ta.getColor(R.styleable.SlidingTabLayout_sl_text_select_color, Color.parseColor("#000000"));
-		mTextUnSelectColor = ta.getColor(R.styleable.SlidingTabLayout_sl_text_unselect_color, Color.parseColor("#888888"));
+	/**
+	 * 创建分批创建、虚拟化、绘制模式和跨页跳转的处理对象，tab的创建、回收和标题仍由此类提供
+	 */
+	private void initModes() {
+		mStagedBuilder = new StagedTabBuilder(mTabsContainer, new StagedTabBuilder.Host() {
+			@Override
+			public int addStagedTab(int position, int index) {
+				return SlidingTabLayout.this.addStagedTab(position, index);
+			}
 
-		mIndicatorWidth = ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_width, -1);
-		mIndicatorHeight = ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_height, 0);
-		mIndicatorCornerRadius = ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_radius, 0);
-		mIndicatorMarginLeft = ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_left, 0);
-		mIndicatorMarginTop = ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_top, 0);
-		mIndicatorMarginRight = ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_right, 0);
-		mIndicatorMarginBottom = ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_bottom, 0);
-		mIsIndicatorWidthEqualTitle = ta.getBoolean(R.styleable.SlidingTabLayout_sl_indicator_width_equal_tisle, mIndicatorWidth > 0 ? false : true);
+			@Override
+			public int getCurrentTab() {
+				return mCurrentTab;
+			}
 
-		mIndicatorColor = ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_color, Color.parseColor("#000000"));
-		mIndicatorStartColor = ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_start_color, 0);
-		mIndicatorCenterColor = ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_center_color, 0);
-		mIndicatorEndColor = ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_end_color, 0);
+			@Override
+			public void onLeadingTabsBuilt() {
+				mPendingScrollToCurrent = true;
+			}
+		});
+		mVirtualWindow = new VirtualTabWindow(mTabsContainer, mGeometry, new VirtualTabWindow.Host() {
+			@Override
+			public View obtainTab(int position) {
+				return bindVirtualTab(position);
+			}
 
-		mIndicatorGravity = ta.getInt(R.styleable.SlidingTabLayout_sl_indicator_gravity, 1) == 0 ? Gravity.TOP : Gravity.BOTTOM;
+			@Override
+			public void releaseTab(View tabView) {
+				mTabViewPool.release(tabView);
+			}
+		});
+		mTitleRenderer = new CanvasTitleRenderer(mGeometry, new CanvasTitleRenderer.TitleSource() {
+			@Override
+			public CharSequence getTitle(int position) {
+				return getPageTitleAt(position);
+			}
+		});
+		mJumpAnimator = new JumpAnimator(new JumpAnimator.Callback() {
+			@Override
+			public void onJumpUpdate(int from, int to, float fraction) {
+				changeTextSize(from, to, fraction);
+				calcIndicatorRect();
+				moveIndicator();
+				scrollTo(mJumpAnimator.getScrollX(), 0);
+				updateVirtualWindow();
+				invalidateTitles();
+			}
 
-		mTextSizeType = ta.getInt(R.styleable.SlidingTabLayout_sl_text_size_type, TypedValue.COMPLEX_UNIT_DIP);
+			@Override
+			public void onJumpEnd() {
+				finishJump();
+			}
+		});
+	}
 
-		ta.recycle();
+	/**
+	 * 读取样式，布局属性已在TabStyle中解析并缓存
+	 */
+	private void applyStyle(TabStyle style) {
+		mTabWidth = style.mTabWidth;
+		mIsTabWidthEqual = style.mIsTabWidthEqual;
+		mTabPadding = style.mTabPadding;
+
+		mTextBold = style.mTextBold;
+		mTextSelectSize = style.mTextSelectSize;
+		mTextUnSelectSize = style.mTextUnSelectSize;
+		mTextSelectColor = style.mTextSelectColor;
+		mTextUnSelectColor = style.mTextUnSelectColor;
+		mTransitionColorSpace = style.mTransitionColorSpace;
+
+		mIndicatorWidth = style.mIndicatorWidth;
+		mIndicatorHeight = style.mIndicatorHeight;
+		mIndicatorCornerRadius = style.mIndicatorCornerRadius;
+		mIndicatorMarginLeft = style.mIndicatorMarginLeft;
+		mIndicatorMarginTop = style.mIndicatorMarginTop;
+		mIndicatorMarginRight = style.mIndicatorMarginRight;
+		mIndicatorMarginBottom = style.mIndicatorMarginBottom;
+		mIsIndicatorWidthEqualTitle = style.mIsIndicatorWidthEqualTitle;
+
+		mIndicatorColor = style.mIndicatorColor;
+		mIndicatorStartColor = style.mIndicatorStartColor;
+		mIndicatorCenterColor = style.mIndicatorCenterColor;
+		mIndicatorEndColor = style.mIndicatorEndColor;
+
+		mIndicatorGravity = style.mIndicatorGravity;
+
+		mTextSizeType = style.mTextSizeType;
+
+		mIsVirtualized = style.mIsVirtualized;
+		mIsTextScaleMode = style.mIsTextScaleMode;
+		mIsCanvasMode = style.mIsCanvasMode;
+		mIsFrameCoalesced = style.mIsFrameCoalesced;
+		mIsFrameExtrapolated = style.mIsFrameExtrapolated;
+		mIsFarJumpAnimated = style.mIsFarJumpAnimated;
+		mIsViewPagerSmoothScroll = style.mIsViewPagerSmoothScroll;
+		mIsStagedTabs = style.mIsStagedTabs;
+
+		mHeight = style.mHeight;
 	}
 
 	/**
@@ -174,6 +372,7 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 			throw new IllegalStateException("ViewPager or ViewPager adapter can not be NULL !");
 		}
 
+		releasePagedTitles();
 		this.mViewPager = vp;
 		mViewPager.removeOnPageChangeListener(this);
 		mViewPager.addOnPageChangeListener(this);
@@ -196,6 +395,7 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 			throw new IllegalStateException("Titles length must be the same as the page count !");
 		}
 
+		releasePagedTitles();
 		this.mViewPager = vp;
 		mTitles = new ArrayList<>();
 		Collections.addAll(mTitles, titles);
@@ -205,389 +405,2030 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 		notifyDataSetChanged();
 	}
 
+	/**
+	 * 关联ViewPager，标题由provider在executor中按页加载。只请求可见范围附近的标题，
+	 * 缓存的页数有限，加载完成前按占位宽度布局。需要先开启虚拟化或绘制模式
+	 */
+	public void setViewPager(ViewPager vp, TabTitleProvider provider, Executor executor) {
+		if (vp == null || vp.getAdapter() == null) {
+			throw new IllegalStateException("ViewPager or ViewPager adapter can not be NULL !");
+		}
+
+		if (provider == null || executor == null) {
+			throw new IllegalStateException("Title provider or executor can not be NULL !");
+		}
+
+		if (!isComputedGeometry()) {
+			throw new IllegalStateException("Paged titles require virtualized or canvas mode !");
+		}
+
+		releasePagedTitles();
+		this.mViewPager = vp;
+		mTitles = null;
+		mPagedTitles = new PagedTitles(provider, executor, TITLE_PAGE_SIZE, MAX_TITLE_PAGES);
+		mPagedTitles.setOnPageLoadedListener(new PagedTitles.OnPageLoadedListener() {
+			@Override
+			public void onPageLoaded(int positionStart, int itemCount) {
+				onTitlePageLoaded(positionStart, itemCount);
+			}
+		});
+
+		this.mViewPager.removeOnPageChangeListener(this);
+		this.mViewPager.addOnPageChangeListener(this);
+		notifyDataSetChanged();
+	}
+
+	private void releasePagedTitles() {
+		if (mPagedTitles != null) {
+			mPagedTitles.release();
+			mPagedTitles = null;
+		}
+	}
+
+	/**
+	 * 一页标题加载完成，只重新测量这一页的tab，已实例化的tab中只重新绑定这一页范围内的。
+	 * 宽度有变化时之后的tab整体平移，重新布局并按新位置滚动到当前tab
+	 */
+	private void onTitlePageLoaded(int positionStart, int itemCount) {
+		beginUpdate();
+		try {
+			if (positionStart + itemCount > mTabCount) {
+				return;
+			}
+			float maxTextSize = Math.max(mTextSelectSize, mTextUnSelectSize);
+			TextPaint titlePaint = getTitlePaint();
+			DisplayMetrics metrics = getResources().getDisplayMetrics();
+			int equalWidth = getEqualTabWidth();
+			int[] widths = new int[itemCount];
+			for (int i = 0; i < itemCount; i++) {
+				widths[i] = measureLoadedTab(positionStart + i, maxTextSize, titlePaint, metrics, equalWidth);
+			}
+			boolean isWidthChanged = mGeometry.replaceWidths(positionStart, widths, itemCount);
+
+			if (mVirtualWindow.getFirst() >= 0) {
+				int first = Math.max(positionStart, mVirtualWindow.getFirst());
+				int last = Math.min(positionStart + itemCount - 1, mVirtualWindow.getLast());
+				for (int i = first; i <= last; i++) {
+					rebindVirtualTab(mVirtualWindow.getTab(i), i);
+				}
+			}
+			if (isWidthChanged) {
+				mTabsContainer.setMinimumWidth(mGeometry.getTotalWidth());
+				mVirtualWindow.updateLeadingSpace();
+				updateVirtualWindow();
+				requestVisibleTitles();
+				mPendingScrollToCurrent = true;
+				requestLayout();
+			}
+			invalidateTitles();
+		}
+		finally {
+			endUpdate();
+		}
+	}
+
 	/**
 	 * 更新数据
 	 */
 	private void notifyDataSetChanged() {
+		beginUpdate();
+		try {
+			long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.NOTIFY_DATA_SET_CHANGED);
+			rebuildTabs();
+			if (mMetrics != null) {
+				mMetrics.end(TabStripMetrics.NOTIFY_DATA_SET_CHANGED, start);
+				reportMetrics();
+			}
+		}
+		finally {
+			endUpdate();
+		}
+	}
+
+	/**
+	 * 按当前模式重新创建所有tab
+	 */
+	private void rebuildTabs() {
+		if (mPagedTitles != null && !isComputedGeometry()) {
+			throw new IllegalStateException("Paged titles require virtualized or canvas mode !");
+		}
+		if (mJumpAnimator.isRunning()) {
+			finishJump();
+		}
+		mStagedBuilder.cancel();
+		releaseAllTabs();
 		mTabsContainer.removeAllViews();
 		if (mViewPager == null || mViewPager.getAdapter() == null) {
 			throw new IllegalStateException("ViewPager or ViewPager Adapter is null");
 		}
 		mTabCount = mTitles == null ? mViewPager.getAdapter().getCount() : mTitles.size();
-		View tabView;
+		mSelectedTab = mCurrentTab;
+		mDirtyHolders.clear();
+		if (mPagedTitles != null) {
+			mPagedTitles.reset(mTabCount);
+		}
+		if (mIsCanvasMode) {
+			measureVirtualTabs();
+			resetCanvasTransition();
+			requestVisibleTitles();
+			return;
+		}
+		if (mIsVirtualized) {
+			measureVirtualTabs();
+			mVirtualWindow.attach();
+			updateVirtualWindow();
+			requestVisibleTitles();
+			return;
+		}
+		mTabsContainer.setMinimumWidth(0);
+		//位置在布局完成后读取
+		mGeometry.reset(0);
+		if (mIsStagedTabs) {
+			mStagedBuilder.build(mTabCount, getViewportWidth(), (int) mTabWidth, mIsTabWidthEqual);
+			return;
+		}
 		for (int i = 0; i < mTabCount; i++) {
-			tabView = View.inflate(mContext, R.layout.layout_tab, null);
-			CharSequence pageTitle = mTitles == null ? mViewPager.getAdapter().getPageTitle(i) : mTitles.get(i);
-			if (pageTitle != null)
-				addTab(i, pageTitle.toString(), tabView);
+			addTab(i, getPageTitleAt(i), obtainTabView());
 		}
 
 		updateTabStyles();
 	}
 
+	//数据局部变化后，在下次布局完成时重新居中当前tab
+	private boolean mPendingScrollToCurrent;
+
 	/**
-	 * 添加tabview
-	 * @param position 位置
-	 * @param title 标题
-	 * @param tabView 自定义view
+	 * 更新标题列表，与当前标题做差异比较，只插入、删除、移动或修改变化的tab，
+	 * 保留当前选中项、滚动位置和指示器位置
+	 * @param titles 新的标题，长度必须与adapter的页数一致
 	 */
-	private void addTab(int position, String title, View tabView) {
-		TextView tv_tab_text = tabView.findViewById(R.id.tv_tab_title);
-		if (tv_tab_text == null || TextUtils.isEmpty(title)) {
-			return;
-		}
-		tv_tab_text.setText(title);
-		tabView.setOnClickListener(new OnClickListener() {
-			@Override
-			public void onClick(View v) {
-				int position = mTabsContainer.indexOfChild(v);
-				if (position >= 0) {
-					// 当前viewpager未选中此项
-					if (mViewPager.getCurrentItem() != position) {
-//						mViewPager.setCurrentItem(position, Math.abs(mCurrentTab - position) == 1);
-						mViewPager.setCurrentItem(position, true);
-						if (selectListener != null) {
-							selectListener.onTabFirstChose(position);
-						}
-					} else {
-						if (selectListener != null) {
-							selectListener.onTabReselctChose(position);
-						}
-					}
-				}
+	public void setTitles(String[] titles) {
+		beginUpdate();
+		try {
+			if (mViewPager == null || mViewPager.getAdapter() == null) {
+				throw new IllegalStateException("ViewPager or ViewPager adapter can not be NULL !");
 			}
-		});
 
-		//设置样式
-		LinearLayout.LayoutParams params;
-		if (mTabWidth > 0) {
-			params = new LinearLayout.LayoutParams((int) mTabWidth, LinearLayout.LayoutParams.MATCH_PARENT);
-		} else {
-			params = mIsTabWidthEqual ?
-					new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT, 1.0f) :
-					new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.MATCH_PARENT);
-		}
-		mTabsContainer.addView(tabView, position, params);
-	}
+			if (titles == null || titles.length == 0) {
+				throw new IllegalStateException("Titles can not be EMPTY !");
+			}
 
+			if (titles.length != mViewPager.getAdapter().getCount()) {
+				throw new IllegalStateException("Titles length must be the same as the page count !");
+			}
 
-	public View getTabView(int position) {
-		if (position < 0) {
-			return null;
+			releasePagedTitles();
+			mStagedBuilder.complete();
+			List<String> oldTitles = mTitles;
+			if (oldTitles == null && !isComputedGeometry()) {
+				oldTitles = getBoundTitles();
+			}
+			mTitles = new ArrayList<>();
+			Collections.addAll(mTitles, titles);
+			if (isComputedGeometry()) {
+				//虚拟化和绘制模式只需重新计算位置
+				refreshVirtualTabs(oldTitles == null ? mCurrentTab : keepSelectionByTitle(oldTitles, mTitles));
+				return;
+			}
+			if (oldTitles == null || mTabsContainer.getChildCount() != mTabCount) {
+				//无法与旧数据一一对应，整体重建
+				notifyDataSetChanged();
+				return;
+			}
+			applyTitleDiff(oldTitles, mTitles);
 		}
-		if (position >= mTabCount) {
-			return null;
+		finally {
+			endUpdate();
 		}
-		return mTabsContainer.getChildAt(position);
 	}
 
-	public TextView getTitleView(int position) {
-		if (position < 0) {
+	/**
+	 * 当前tab上显示的标题
+	 */
+	private List<String> getBoundTitles() {
+		if (mTabsContainer.getChildCount() != mTabCount) {
 			return null;
 		}
-		if (position >= mTabCount) {
-			return null;
+		ArrayList<String> titles = new ArrayList<>(mTabCount);
+		for (int i = 0; i < mTabCount; i++) {
+			titles.add(getTitleView(i).getText().toString());
 		}
-		return mTabsContainer.getChildAt(position).findViewById(R.id.tv_tab_title);
+		return titles;
 	}
 
 	/**
-	 * 设置tab样式
+	 * adapter在positionStart处插入了itemCount页
 	 */
-	private void updateTabStyles() {
-		for (int i = 0; i < mTabCount; i++) {
-			boolean isSelect = i == mCurrentTab;
-			View tabView = mTabsContainer.getChildAt(i);
-			TextView title = tabView.findViewById(R.id.tv_tab_title);
-			if (title == null) {
-				break;
+	public void notifyTabsInserted(int positionStart, int itemCount) {
+		beginUpdate();
+		try {
+			mStagedBuilder.complete();
+			//插入位置最大可以是末尾
+			checkRangeUpdate(positionStart, Math.min(itemCount, 1), mTabCount);
+			int newCurrent = mCurrentTab >= positionStart ? mCurrentTab + itemCount : mCurrentTab;
+			mTabCount += itemCount;
+			if (isComputedGeometry()) {
+				refreshVirtualTabs(newCurrent);
+				return;
 			}
-			title.setTextColor(isSelect ? mTextSelectColor : mTextUnSelectColor);
-			title.setTextSize(mTextSizeType, isSelect ? mTextSelectSize : mTextUnSelectSize);
-			title.setPadding((int)mTabPadding, 0, (int)mTabPadding, 0);
-			if (mTextBold == TEXT_BOLD_BOTH) {
-				title.getPaint().setFakeBoldText(true);
+			for (int i = positionStart; i < positionStart + itemCount; i++) {
+				View tabView = obtainTabView();
+				addTab(i, getPageTitleAt(i), tabView);
+				applyTabStyle(TabHolder.of(tabView), false);
+			}
+			onTabsUpdated(newCurrent);
+		}
+		finally {
+			endUpdate();
+		}
+	}
+
+	/**
+	 * adapter从positionStart处删除了itemCount页
+	 */
+	public void notifyTabsRemoved(int positionStart, int itemCount) {
+		beginUpdate();
+		try {
+			mStagedBuilder.complete();
+			checkRangeUpdate(positionStart, itemCount, mTabCount - 1);
+			int newCurrent;
+			if (mCurrentTab >= positionStart + itemCount) {
+				newCurrent = mCurrentTab - itemCount;
+			} else if (mCurrentTab >= positionStart) {
+				//选中的tab被删除，选中删除位置上的新tab
+				newCurrent = Math.min(positionStart, mTabCount - itemCount - 1);
+			} else {
+				newCurrent = mCurrentTab;
 			}
-			else if (mTextBold == TEXT_BOLD_SELCET) {
-				title.getPaint().setFakeBoldText(isSelect);
+			mTabCount -= itemCount;
+			if (isComputedGeometry()) {
+				refreshVirtualTabs(newCurrent);
+				return;
 			}
-			else {
-				title.getPaint().setFakeBoldText(false);
+			for (int i = positionStart + itemCount - 1; i >= positionStart; i--) {
+				mTabViewPool.release(mTabsContainer.getChildAt(i));
 			}
-			//设置后一定要刷新，否则无效
-			title.postInvalidate();
+			onTabsUpdated(newCurrent);
+		}
+		finally {
+			endUpdate();
 		}
 	}
 
-	@Override
-	public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-//		Log.d("mLog", "position********: " + position);
-//		Log.d("mLog", "positionOffsetPixels: " + positionOffsetPixels + "-----" + i++);
-		this.mCurrentTab = position;
-		this.mCurrentPositionOffset = positionOffset;
-		scrollToCurrentTab();
-		getTargetPosition(position, positionOffsetPixels);
-
-		invalidate();
+	/**
+	 * adapter把fromPosition的页移动到了toPosition
+	 */
+	public void notifyTabMoved(int fromPosition, int toPosition) {
+		beginUpdate();
+		try {
+			mStagedBuilder.complete();
+			checkRangeUpdate(fromPosition, 1, mTabCount - 1);
+			checkRangeUpdate(toPosition, 1, mTabCount - 1);
+			if (fromPosition == toPosition) {
+				return;
+			}
+			int newCurrent = mCurrentTab;
+			if (mCurrentTab == fromPosition) {
+				newCurrent = toPosition;
+			} else if (fromPosition < mCurrentTab && toPosition >= mCurrentTab) {
+				newCurrent--;
+			} else if (fromPosition > mCurrentTab && toPosition <= mCurrentTab) {
+				newCurrent++;
+			}
+			if (isComputedGeometry()) {
+				refreshVirtualTabs(newCurrent);
+				return;
+			}
+			View tabView = mTabsContainer.getChildAt(fromPosition);
+			mTabsContainer.removeViewAt(fromPosition);
+			mTabsContainer.addView(tabView, toPosition);
+			onTabsUpdated(newCurrent);
+		}
+		finally {
+			endUpdate();
+		}
 	}
 
-	@Override
-	public void onPageSelected(int position) {
-//		updateTabSelection(position);
+	/**
+	 * adapter从positionStart开始的itemCount页标题发生了变化
+	 */
+	public void notifyTabsChanged(int positionStart, int itemCount) {
+		beginUpdate();
+		try {
+			mStagedBuilder.complete();
+			checkRangeUpdate(positionStart, itemCount, mTabCount - 1);
+			if (isComputedGeometry()) {
+				refreshVirtualTabs(mCurrentTab);
+				return;
+			}
+			for (int i = positionStart; i < positionStart + itemCount; i++) {
+				TabHolder holder = getTabHolder(i);
+				if (holder != null) {
+					bindTitle(holder, getPageTitleAt(i), i == mSelectedTab, i);
+				}
+			}
+			mPendingScrollToCurrent = true;
+			//固定宽度的tab修改标题不会重新布局，标题宽度可能已经改变
+			updateIndicator();
+		}
+		finally {
+			endUpdate();
+		}
 	}
 
-	@Override
-	public void onPageScrollStateChanged(int state) {
-
+	private void checkRangeUpdate(int positionStart, int itemCount, int maxPosition) {
+		if (mViewPager == null || mViewPager.getAdapter() == null) {
+			throw new IllegalStateException("ViewPager or ViewPager Adapter is null");
+		}
+		if (mTitles != null) {
+			throw new IllegalStateException("Titles are given by setViewPager(ViewPager, String[]), use setTitles() instead !");
+		}
+		if (positionStart < 0 || itemCount < 0 || positionStart + itemCount - 1 > maxPosition) {
+			throw new IndexOutOfBoundsException("Invalid tab range: " + positionStart + ", " + itemCount);
+		}
 	}
 
-	//滑动或者点击时之前选中的tab
-	private int mLastChosePosition;
-
 	/**
-	 * 判断目标tab是上一个还是下一个
-	 * @param position 滑动时vp给的position
-	 * @param positionOffsetPixels 滑动像素
+	 * 按标题差异局部更新tab：相同的头尾不动，中间部分优先复用同标题的tab，
+	 * 其余复用的tab只改文字，不够时才新建
 	 */
-	private void getTargetPosition(int position, int positionOffsetPixels) {
-		if (positionOffsetPixels == 0) {
-			updateTabSelection(position);
-			mLastChosePosition = position;
+	private void applyTitleDiff(List<String> oldTitles, List<String> newTitles) {
+		View selectedTab = mTabCount > 0 ? mTabsContainer.getChildAt(mCurrentTab) : null;
+		int oldSize = oldTitles.size();
+		int newSize = newTitles.size();
+		int start = 0;
+		while (start < oldSize && start < newSize && oldTitles.get(start).equals(newTitles.get(start))) {
+			start++;
+		}
+		int oldEnd = oldSize;
+		int newEnd = newSize;
+		while (oldEnd > start && newEnd > start && oldTitles.get(oldEnd - 1).equals(newTitles.get(newEnd - 1))) {
+			oldEnd--;
+			newEnd--;
+		}
+		mTabCount = newSize;
+		if (start == oldEnd && start == newEnd) {
 			return;
 		}
 
-		Log.d("mLog", "mLastChosePosition: " + mLastChosePosition);
-		if (mLastChosePosition == position) {
-			changeTextSize(mLastChosePosition, mLastChosePosition + 1);
-			Log.d("mLog", "下一个: " + position);
+		//中间部分的旧tab按标题归类
+		HashMap<String, ArrayDeque<View>> sameTitleTabs = new HashMap<>();
+		for (int i = start; i < oldEnd; i++) {
+			ArrayDeque<View> tabs = sameTitleTabs.get(oldTitles.get(i));
+			if (tabs == null) {
+				tabs = new ArrayDeque<>();
+				sameTitleTabs.put(oldTitles.get(i), tabs);
+			}
+			tabs.add(mTabsContainer.getChildAt(i));
 		}
-		if (mLastChosePosition == position + 1) {
-			Log.d("mLog", "上一个: " + position);
-			changeTextSize(mLastChosePosition, mLastChosePosition - 1);
+		View[] newTabs = new View[newEnd - start];
+		for (int i = start; i < newEnd; i++) {
+			ArrayDeque<View> tabs = sameTitleTabs.get(newTitles.get(i));
+			if (tabs != null && !tabs.isEmpty()) {
+				newTabs[i - start] = tabs.poll();
+			}
 		}
-		if (mLastChosePosition == position + 2) {
-			mLastChosePosition = position + 1;
+		ArrayDeque<View> unusedTabs = new ArrayDeque<>();
+		for (ArrayDeque<View> tabs : sameTitleTabs.values()) {
+			unusedTabs.addAll(tabs);
 		}
-		if (mLastChosePosition == position - 1) {
-			mLastChosePosition = position;
+		boolean[] rebound = new boolean[newTabs.length];
+		for (int i = start; i < newEnd; i++) {
+			if (newTabs[i - start] != null) {
+				continue;
+			}
+			View tabView = unusedTabs.poll();
+			if (tabView == null) {
+				tabView = obtainTabView();
+				tabView.setLayoutParams(createTabLayoutParams());
+			}
+			bindTitle(TabHolder.of(tabView), newTitles.get(i), false, i);
+			newTabs[i - start] = tabView;
+			rebound[i - start] = true;
 		}
-	}
 
-	/**
-	 * 改变文字大小及颜色加粗等
-	 * @param thisPosition 当前tab
-	 * @param nextPosition 目标tab
-	 */
-	private void changeTextSize(int thisPosition, int nextPosition) {
-		boolean isNext = nextPosition > thisPosition;
-//		Log.d("mLog", "thisPosition: " + thisPosition + "  nextPosition" + nextPosition);
-		TextView currentText = mTabsContainer.getChildAt(thisPosition).findViewById(R.id.tv_tab_title);
-		TextView nextText = mTabsContainer.getChildAt(nextPosition).findViewById(R.id.tv_tab_title);
-
-		if (mTextUnSelectSize != mTextSelectSize) {
-			//文字大小渐变
-			float disSize = Math.abs(mTextUnSelectSize - mTextSelectSize) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset));
-			currentText.setTextSize(mTextSizeType, mTextSelectSize - disSize);
-			nextText.setTextSize(mTextSizeType, mTextUnSelectSize + disSize);
+		//删除多余的tab，再把中间部分按新顺序摆放，位置正确的tab不动
+		for (View tabView : unusedTabs) {
+			mTabViewPool.release(tabView);
 		}
-
-		//设定滑动50%开始改变粗体
-		boolean startChangeBold = isNext ? Math.abs(mCurrentPositionOffset) > 0.5 : Math.abs(mCurrentPositionOffset) < 0.5;
-		if (startChangeBold && mTextBold == TEXT_BOLD_SELCET) {
-			currentText.getPaint().setFakeBoldText(false);
-			nextText.getPaint().setFakeBoldText(true);
-			//设置后一定要刷新，否则无效
-			currentText.postInvalidate();
-			nextText.postInvalidate();
+		for (int i = start; i < newEnd; i++) {
+			View tabView = newTabs[i - start];
+			if (mTabsContainer.getChildAt(i) == tabView) {
+				continue;
+			}
+			if (tabView.getParent() != null) {
+				mTabsContainer.removeView(tabView);
+			}
+			mTabsContainer.addView(tabView, i);
 		}
 
-		//文字颜色渐变
-		int[] currentColor = new int[]{Color.alpha(mTextSelectColor), Color.red(mTextSelectColor), Color.green(mTextSelectColor), Color.blue(mTextSelectColor)};
-		int[] nextColor = new int[]{Color.alpha(mTextUnSelectColor), Color.red(mTextUnSelectColor), Color.green(mTextUnSelectColor), Color.blue(mTextUnSelectColor)};
-
-		int[] disToNextColor = new int[]{
-				(int) ((nextColor[0] - currentColor[0]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-				(int) ((nextColor[1] - currentColor[1]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-				(int) ((nextColor[2] - currentColor[2]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-				(int) ((nextColor[3] - currentColor[3]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-		};
-		int[] disToCurrentColor = new int[]{
-				(int) ((currentColor[0] - nextColor[0]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-				(int) ((currentColor[1] - nextColor[1]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-				(int) ((currentColor[2] - nextColor[2]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-				(int) ((currentColor[3] - nextColor[3]) * (isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset))),
-		};
-
-		currentText.setTextColor(Color.argb(
-				currentColor[0] - disToCurrentColor[0],
-				currentColor[1] - disToCurrentColor[1],
-				currentColor[2] - disToCurrentColor[2],
-				currentColor[3] - disToCurrentColor[3]));
-		nextText.setTextColor(Color.argb(
-				nextColor[0] - disToNextColor[0],
-				nextColor[1] - disToNextColor[1],
-				nextColor[2] - disToNextColor[2],
-				nextColor[3] - disToNextColor[3]));
+		int newCurrent = selectedTab == null ? -1 : mTabsContainer.indexOfChild(selectedTab);
+		if (newCurrent < 0) {
+			newCurrent = Math.min(Math.max(mCurrentTab, 0), mTabCount - 1);
+		}
+		for (int i = 0; i < rebound.length; i++) {
+			if (rebound[i] && i + start != newCurrent) {
+				applyTabStyle(TabHolder.of(newTabs[i]), false);
+			}
+		}
+		onTabsUpdated(newCurrent);
 	}
 
-	private int mLastScrollX;
-
 	/**
-	 * 滚动到当前位置并且居中(如果可以)
+	 * 旧标题列表中选中的tab在新标题列表中的位置，找不到时保持原位置
 	 */
-	private void scrollToCurrentTab() {
-		if (mTabCount <= 0) {
-			return;
+	private int keepSelectionByTitle(List<String> oldTitles, List<String> newTitles) {
+		if (mCurrentTab >= oldTitles.size()) {
+			return Math.min(mCurrentTab, newTitles.size() - 1);
 		}
-		// 平移距离
-		int offsetdistance = (int) (mCurrentPositionOffset * mTabsContainer.getChildAt(mCurrentTab).getWidth());
-		//当前Tab的left+当前Tab的Width
-		int newScrollX = mTabsContainer.getChildAt(mCurrentTab).getLeft() + offsetdistance;
-		if (mCurrentTab > 0 || offsetdistance > 0) {
-			//HorizontalScrollView移动到当前tab,并居中
-			newScrollX -= getWidth() / 2 - getPaddingLeft();
-			calcIndicatorRect();
-			newScrollX += ((mTabRect.right - mTabRect.left) / 2);
-		}
-
-		if (newScrollX != mLastScrollX) {
-			mLastScrollX = newScrollX;
-			/** scrollTo（int x,int y）:x,y代表的不是坐标点,而是偏移量
-			 *  x:表示离起始位置的x水平方向的偏移量
-			 *  y:表示离起始位置的y垂直方向的偏移量
-			 */
-			scrollTo(newScrollX, 0);
+		String selectedTitle = oldTitles.get(mCurrentTab);
+		if (mCurrentTab < newTitles.size() && selectedTitle.equals(newTitles.get(mCurrentTab))) {
+			return mCurrentTab;
 		}
-
+		int position = newTitles.indexOf(selectedTitle);
+		return position >= 0 ? position : Math.min(mCurrentTab, newTitles.size() - 1);
 	}
 
-
 	/**
-	 * 更新目标tab样式
+	 * 虚拟化或绘制模式下的局部更新：只需重新计算位置，已实例化的少量tab重新绑定
 	 */
-	private void updateTabSelection(int position) {
-		for (int i = 0; i < mTabCount; ++i) {
-			View tabView = mTabsContainer.getChildAt(i);
-			boolean isSelect = i == position;
-			TextView title = tabView.findViewById(R.id.tv_tab_title);
-			if (title != null) {
-				title.setTextColor(isSelect ? mTextSelectColor : mTextUnSelectColor);
-				title.setTextSize(mTextSizeType, isSelect ? mTextSelectSize : mTextUnSelectSize);
-				if (mTextBold == TEXT_BOLD_SELCET) {
-					title.getPaint().setFakeBoldText(isSelect);
-					//设置后一定要刷新，否则无效
-					title.postInvalidate();
-				}
-			}
+	private void refreshVirtualTabs(int newCurrent) {
+		mTabCount = mTitles == null ? mViewPager.getAdapter().getCount() : mTitles.size();
+		if (mPagedTitles != null) {
+			//位置发生变化，已加载的标题全部重新加载
+			mPagedTitles.reset(mTabCount);
 		}
+		mCurrentTab = Math.max(0, Math.min(newCurrent, mTabCount - 1));
+		mSwipeTracker.setChosenPosition(mCurrentTab);
+		mSelectedTab = mCurrentTab;
+		measureVirtualTabs();
+		mVirtualWindow.recycle();
+		updateVirtualWindow();
+		requestVisibleTitles();
+		resetCanvasTransition();
+		mPendingScrollToCurrent = true;
+		requestLayout();
 	}
 
-	private Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-	private float margin;
-
 	/**
-	 * 配置指示器位置
+	 * 局部更新后修正选中项，只重新设置选中状态变化的tab
 	 */
-	private void calcIndicatorRect() {
-		View currentTabView = mTabsContainer.getChildAt(mCurrentTab);
-		float left = currentTabView.getLeft();
-		float right = currentTabView.getRight();
-
-		if (mIsIndicatorWidthEqualTitle) {
-			TextView title = currentTabView.findViewById(R.id.tv_tab_title);
-			//TODO 不一定是这个大小
-			mTextPaint.setTextSize(mTextUnSelectSize);
-			float textWidth = mTextPaint.measureText(title.getText().toString());
-			margin = (right - left - textWidth) / 2;
+	private void onTabsUpdated(int newCurrent) {
+		newCurrent = Math.max(0, Math.min(newCurrent, mTabCount - 1));
+		TabHolder holder = getTabHolder(newCurrent);
+		if (holder != null) {
+			applyTabStyle(holder, true);
 		}
+		mCurrentTab = newCurrent;
+		mSwipeTracker.setChosenPosition(newCurrent);
+		mSelectedTab = newCurrent;
+		mPendingScrollToCurrent = true;
+	}
 
-		// 如果不到最后一个,配置下一个tab
-		if (mCurrentTab < mTabCount - 1) {
-			View nextTabView = mTabsContainer.getChildAt(mCurrentTab + 1);
-			float nextTabLeft = nextTabView.getLeft();
-			float nextTabRight = nextTabView.getRight();
-
-			left = left + mCurrentPositionOffset * (nextTabLeft - left);
-			right = right + mCurrentPositionOffset * (nextTabRight - right);
-
-			if (mIsIndicatorWidthEqualTitle) {
-				TextView nextTitle = nextTabView.findViewById(R.id.tv_tab_title);
-				//TODO 不一定是这个大小
-				mTextPaint.setTextSize(mTextUnSelectSize);
-				float nextTextWidth = mTextPaint.measureText(nextTitle.getText().toString());
-				margin = margin + mCurrentPositionOffset * (nextTextWidth - margin);
-			}
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.LAYOUT);
+		super.onLayout(changed, l, t, r, b);
+		if (!isComputedGeometry()) {
+			updateGeometryFromLayout();
 		}
-
-		mIndicatorRect.left = (int) left;
-		mIndicatorRect.right = (int) right;
-		if (mIsIndicatorWidthEqualTitle) {
-			mIndicatorRect.left = (int) (left + margin - 1);
-			mIndicatorRect.right = (int) (right - margin - 1);
+		if (mPendingScrollToCurrent) {
+			mPendingScrollToCurrent = false;
+			scrollToCurrentTab();
+			invalidateTitles();
+		} else {
+			//父类按布局参数重新布局了指示器
+			updateIndicator();
 		}
-
-		mTabRect.left = (int) left;
-		mTabRect.right = (int) right;
-
-		if (mIndicatorWidth >= 0) {
-			float indicatorLeft = currentTabView.getLeft() + (currentTabView.getWidth() - mIndicatorWidth) / 2;
-			if (mCurrentTab < mTabCount - 1) {
-				View nextTab = mTabsContainer.getChildAt(mCurrentTab + 1);
-				indicatorLeft = indicatorLeft
-						+ mCurrentPositionOffset
-						* ((float) currentTabView.getWidth() / 2 + (float) nextTab.getWidth() / 2);
-			}
-			mIndicatorRect.left = (int) indicatorLeft;
-			mIndicatorRect.right = (int) (mIndicatorRect.left + mIndicatorWidth);
+		if (mMetrics != null) {
+			mMetrics.end(TabStripMetrics.LAYOUT, start);
 		}
 	}
 
-	private boolean mIsJump = false;
-
-	@SuppressLint("DrawAllocation")
 	@Override
-	protected void onDraw(Canvas canvas) {
-		super.onDraw(canvas);
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.MEASURE);
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+		if (mMetrics != null) {
+			mMetrics.end(TabStripMetrics.MEASURE, start);
+		}
+	}
 
-		if (isInEditMode() || mTabCount <= 0) {
+	/**
+	 * view模式下布局完成后从tab view读取位置，之后的定位计算都只读位置表
+	 */
+	private void updateGeometryFromLayout() {
+		if (mStagedBuilder.isBuilding()) {
+			//分批创建中，尚未创建的tab平分所在占位view的宽度
+			mStagedBuilder.updateGeometry(mGeometry);
 			return;
 		}
-		int height = getHeight();
-		int paddingLeft = getPaddingLeft();
+		int count = Math.min(mTabCount, mTabsContainer.getChildCount());
+		mGeometry.reset(count);
+		for (int i = 0; i < count; i++) {
+			View tabView = mTabsContainer.getChildAt(i);
+			mGeometry.set(i, tabView.getLeft(), tabView.getWidth());
+		}
+	}
+
+	/**
+	 * 添加tabview
+	 * @param position 位置
+	 * @param title 标题
+	 * @param tabView 自定义view
+	 */
+	private void addTab(int position, CharSequence title, View tabView) {
+		addTab(position, title, tabView, position);
+	}
+
+	/**
+	 * 标题为空时也添加，显示空标题，保证容器中的tab与页面一一对应
+	 * @param index 在容器中的位置
+	 */
+	private void addTab(int position, CharSequence title, View tabView, int index) {
+		TabHolder holder = TabHolder.of(tabView);
+		if (holder.getTitleView() == null) {
+			throw new IllegalStateException("Tab title view can not be NULL !");
+		}
+		bindTitle(holder, title == null ? "" : title, position == mSelectedTab, position);
+
+		mTabsContainer.addView(tabView, index, createTabLayoutParams());
+	}
+
+	/**
+	 * 创建位置position的tab并放到容器的index处
+	 * @return 估算的tab宽度
+	 */
+	private int addStagedTab(int position, int index) {
+		CharSequence title = getPageTitleAt(position);
+		View tabView = obtainTabView();
+		addTab(position, title, tabView, index);
+		applyTabStyle(TabHolder.of(tabView), position == mSelectedTab);
+		return estimateTabWidth(position, title);
+	}
+
+	/**
+	 * 占位宽度，包裹内容时按标题宽度加内边距估算
+	 */
+	private int estimateTabWidth(int position, CharSequence title) {
+		if (mTabWidth > 0) {
+			return (int) mTabWidth;
+		}
+		if (mIsTabWidthEqual) {
+			return 0;
+		}
+		float textSize = mIsTextScaleMode ? getLayoutTextSize() :
+				position == mSelectedTab ? mTextSelectSize : mTextUnSelectSize;
+		float textWidth = mTitleWidthCache.measure(title, textSize, mTextSizeType, getTitlePaint(),
+				mTextBold != TEXT_BOLD_NONE, getResources().getDisplayMetrics());
+		return (int) Math.ceil(textWidth + mTabPadding * 2);
+	}
+
+	/**
+	 * 是否开启分批创建模式，开启后首帧前只创建可见范围附近的tab，不能与虚拟化或绘制模式同时开启
+	 */
+	public void setStagedTabs(boolean stagedTabs) {
+		if (stagedTabs && isComputedGeometry()) {
+			throw new IllegalStateException("Staged tabs can not be used with virtualized or canvas mode !");
+		}
+		if (!stagedTabs) {
+			mStagedBuilder.complete();
+		}
+		this.mIsStagedTabs = stagedTabs;
+	}
+
+	public boolean isStagedTabs() {
+		return mIsStagedTabs;
+	}
+
+	/**
+	 * 设置标题并缓存标题宽度
+	 */
+	private void bindTitle(TabHolder holder, CharSequence text, boolean isSelect, int position) {
+		setTitleText(holder, text, isSelect);
+		holder.mTitleWidth = measureTitle(text);
+		if (mTabBindListener != null) {
+			mTabBindListener.onBindTab(holder, position);
+		}
+	}
+
+	/**
+	 * 设置标题文字，有预计算结果时先设置好样式，排版参数一致则直接使用预计算的排版
+	 */
+	private void setTitleText(TabHolder holder, CharSequence text, boolean isSelect) {
+		TextView title = holder.getTitleView();
+		if (mPrecomputedTitles != null) {
+			applyTabStyle(holder, isSelect);
+			PrecomputedTextCompat precomputed = mPrecomputedTitles.find(text, TextViewCompat.getTextMetricsParams(title));
+			if (precomputed != null) {
+				TextViewCompat.setPrecomputedText(title, precomputed);
+				return;
+			}
+		}
+		title.setText(text);
+	}
+
+	/**
+	 * 在后台线程预先计算标题的排版和宽度，结果在主线程交给当前实例，
+	 * 之后创建tab时直接使用，首次布局不再在主线程测量文字。在setViewPager之前调用效果最好，结果晚于tab创建到达时已创建的tab会改用预计算的排版，
+	 * 标题样式变化后预计算结果失效
+	 */
+	public void premeasureTitles(String[] titles, Executor executor) {
+		if (titles == null || executor == null) {
+			throw new IllegalStateException("Titles or executor can not be NULL !");
+		}
+		final String[] pendingTitles = titles.clone();
+		final TextPaint basePaint = new TextPaint(getTitlePaint());
+		final DisplayMetrics metrics = getResources().getDisplayMetrics();
+		final float[] textSizes = mTextSelectSize == getLayoutTextSize() ?
+				new float[]{mTextSelectSize} : new float[]{mTextSelectSize, getLayoutTextSize()};
+		final int textSizeType = mTextSizeType;
+		final boolean bold = mTextBold != TEXT_BOLD_NONE;
+
+		//取tab标题TextView选中和未选中时的排版参数
+		View tabView = obtainTabView();
+		TabHolder holder = TabHolder.of(tabView);
+		TextView title = holder.getTitleView();
+		applyTabStyle(holder, true);
+		final PrecomputedTextCompat.Params selectParams = TextViewCompat.getTextMetricsParams(title);
+		applyTabStyle(holder, false);
+		final PrecomputedTextCompat.Params unSelectParams = TextViewCompat.getTextMetricsParams(title);
+		mTabViewPool.release(tabView);
+
+		final int generation = ++mPremeasureGeneration;
+		final Handler mainHandler = new Handler(Looper.getMainLooper());
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				final PrecomputedTitles result = new PrecomputedTitles(pendingTitles, selectParams, unSelectParams,
+						basePaint, textSizes, textSizeType, bold, metrics);
+				mainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (generation == mPremeasureGeneration) {
+							mPrecomputedTitles = result;
+							mTitleWidthCache.setPrecomputed(result);
+							applyPrecomputedTitles();
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * 预计算结果晚于tab创建到达时，已创建且不在过渡中的tab改用预计算的排版
+	 */
+	private void applyPrecomputedTitles() {
+		if (mIsCanvasMode || mTabCount <= 0) {
+			return;
+		}
+		int first = mIsVirtualized ? mVirtualWindow.getFirst() : 0;
+		int last = mIsVirtualized ? mVirtualWindow.getLast() : mTabCount - 1;
+		if (first < 0) {
+			return;
+		}
+		for (int i = first; i <= last; i++) {
+			TabHolder holder = getTabHolder(i);
+			if (holder == null || holder.mIsStyleDirty) {
+				continue;
+			}
+			TextView title = holder.getTitleView();
+			PrecomputedTextCompat precomputed = mPrecomputedTitles.find(title.getText(), TextViewCompat.getTextMetricsParams(title));
+			if (precomputed != null) {
+				TextViewCompat.setPrecomputedText(title, precomputed);
+			}
+		}
+	}
+
+	/**
+	 * 使用adapter的标题预先计算，标题在当前线程读取
+	 */
+	public void premeasureTitles(PagerAdapter adapter, Executor executor) {
+		if (adapter == null) {
+			throw new IllegalStateException("ViewPager adapter can not be NULL !");
+		}
+		String[] titles = new String[adapter.getCount()];
+		for (int i = 0; i < titles.length; i++) {
+			CharSequence pageTitle = adapter.getPageTitle(i);
+			titles[i] = pageTitle == null ? null : pageTitle.toString();
+		}
+		premeasureTitles(titles, executor);
+	}
+
+	/**
+	 * 按选中状态的字号和粗细测量标题宽度，指示器跟随标题宽度时使用
+	 */
+	private float measureTitle(CharSequence title) {
+		return mTitleWidthCache.measure(title, mTextSelectSize, mTextSizeType, getTitlePaint(),
+				mTextBold != TEXT_BOLD_NONE, getResources().getDisplayMetrics());
+	}
+
+	/**
+	 * 取tab标题TextView的画笔设置，保证测量结果与实际显示一致
+	 */
+	private TextPaint getTitlePaint() {
+		if (mTitlePaint == null) {
+			View tabView = obtainTabView();
+			mTitlePaint = new TextPaint(TabHolder.of(tabView).getTitleView().getPaint());
+			mTabViewPool.release(tabView);
+			mFontScale = getResources().getConfiguration().fontScale;
+		}
+		return mTitlePaint;
+	}
+
+	/**
+	 * 字体缩放或标题样式变化后，清空宽度缓存并重新测量、设置样式
+	 */
+	private void onTitleStyleChanged() {
+		beginUpdate();
+		try {
+			mTitleWidthCache.invalidate();
+			mTitlePaint = null;
+			mTransitionCurve = null;
+			mTitleRenderer.clearStyle();
+			mPrecomputedTitles = null;
+			mPremeasureGeneration++;
+			if (mViewPager == null || mTabCount <= 0) {
+				return;
+			}
+			if (isComputedGeometry()) {
+				if (mPagedTitles != null) {
+					mPagedTitles.clearWidths();
+				}
+				measureVirtualTabs();
+				mVirtualWindow.recycle();
+				updateVirtualWindow();
+				requestVisibleTitles();
+			} else {
+				for (int i = 0; i < mTabCount; i++) {
+					TabHolder holder = getTabHolder(i);
+					if (holder != null) {
+						holder.mTitleWidth = measureTitle(holder.getTitleView().getText());
+					}
+				}
+				updateTabStyles();
+			}
+			mPendingScrollToCurrent = true;
+			requestLayout();
+			invalidate();
+		}
+		finally {
+			endUpdate();
+		}
+	}
+
+	@Override
+	protected void onConfigurationChanged(Configuration newConfig) {
+		super.onConfigurationChanged(newConfig);
+		if (mTitlePaint != null && newConfig.fontScale != mFontScale) {
+			onTitleStyleChanged();
+		}
+	}
+
+	/**
+	 * 根据tab宽度模式生成布局参数
+	 */
+	private LinearLayout.LayoutParams createTabLayoutParams() {
+		LinearLayout.LayoutParams params;
+		if (mTabWidth > 0) {
+			params = new LinearLayout.LayoutParams((int) mTabWidth, LinearLayout.LayoutParams.MATCH_PARENT);
+		} else {
+			params = mIsTabWidthEqual ?
+					new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT, 1.0f) :
+					new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.MATCH_PARENT);
+		}
+		return params;
+	}
+
+	/**
+	 * 点击tab
+	 */
+	private void onTabClick(int position) {
+		if (position >= 0) {
+			// 当前viewpager未选中此项
+			if (mViewPager.getCurrentItem() != position) {
+//				mViewPager.setCurrentItem(position, Math.abs(mCurrentTab - position) == 1);
+				int from = mJumpAnimator.isRunning() ? mJumpAnimator.getTo() : mSwipeTracker.getChosenPosition();
+				if (mIsFarJumpAnimated && Math.abs(position - from) > 1) {
+					startJump(from, position);
+				} else {
+					mViewPager.setCurrentItem(position, true);
+				}
+				if (selectListener != null) {
+					selectListener.onTabFirstChose(position);
+				}
+			} else {
+				if (selectListener != null) {
+					selectListener.onTabReselctChose(position);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 跳转到相隔多页的tab：ViewPager按设置平滑或直接切换，期间的滑动回调被忽略，
+	 * 指示器和滚动位置从起点插值到终点，只有起点和终点两个标题做过渡
+	 */
+	private void startJump(int from, int to) {
+		if (mJumpAnimator.isRunning()) {
+			finishJump();
+		}
+		cancelFrame();
+		//起点为当前绘制的位置
+		calcIndicatorRect();
+		TabStripMath.calcIndicator(mGeometry, to, 0, mIsIndicatorWidthEqualTitle,
+				getTitleWidth(to), 0, mIndicatorWidth, mJumpEndBounds);
+		int endScrollX = TabStripMath.calcCenterScrollX(mGeometry, to, 0, mJumpEndBounds,
+				getWidth(), getPaddingLeft());
+		mJumpAnimator.start(from, to, mIndicatorBounds, mJumpEndBounds, getScrollX(), endScrollX,
+				mIsViewPagerSmoothScroll);
+		mViewPager.setCurrentItem(to, mIsViewPagerSmoothScroll);
+	}
+
+	/**
+	 * 结束跳转，回到ViewPager的真实位置
+	 */
+	private void finishJump() {
+		mJumpAnimator.cancel();
+		if (mViewPager == null || mTabCount <= 0) {
+			return;
+		}
+		int current = Math.min(mViewPager.getCurrentItem(), mTabCount - 1);
+		mCurrentTab = current;
+		mCurrentPositionOffset = 0;
+		getTargetPosition(current, 0);
+		//动画中直接滚动过，以实际位置为准
+		mLastScrollX = getScrollX();
+		scrollToCurrentTab();
+		invalidateTitles();
+	}
+
+	/**
+	 * 是否开启跨页跳转模式，开启后点击相隔多页的tab时只执行一次动画
+	 */
+	public void setFarJumpAnimated(boolean farJumpAnimated) {
+		if (!farJumpAnimated && mJumpAnimator.isRunning()) {
+			finishJump();
+		}
+		this.mIsFarJumpAnimated = farJumpAnimated;
+	}
+
+	public boolean isFarJumpAnimated() {
+		return mIsFarJumpAnimated;
+	}
+
+	/**
+	 * 跨页跳转时ViewPager是否平滑滚动，默认直接切换
+	 */
+	public void setViewPagerSmoothScroll(boolean smoothScroll) {
+		this.mIsViewPagerSmoothScroll = smoothScroll;
+	}
+
+	/**
+	 * 虚拟化和绘制模式下根据标题计算每个tab的位置和宽度，不创建任何view
+	 */
+	private void measureVirtualTabs() {
+		mGeometry.reset(mTabCount);
+		if (mTitleWidths == null || mTitleWidths.length < mTabCount) {
+			mTitleWidths = new float[mTabCount];
+		}
+		//tab宽度按较大的字号计算，滑动时字号变化不会改变tab宽度
+		float maxTextSize = Math.max(mTextSelectSize, mTextUnSelectSize);
+		TextPaint titlePaint = getTitlePaint();
+		DisplayMetrics metrics = getResources().getDisplayMetrics();
+		int equalWidth = getEqualTabWidth();
+		float placeholderTextWidth = 0;
+		float placeholderTitleWidth = 0;
+		if (mPagedTitles != null) {
+			placeholderTextWidth = mTitleWidthCache.measure(PLACEHOLDER_TITLE, maxTextSize, mTextSizeType,
+					titlePaint, mTextBold != TEXT_BOLD_NONE, metrics);
+			placeholderTitleWidth = measureTitle(PLACEHOLDER_TITLE);
+		}
+
+		for (int i = 0; i < mTabCount; i++) {
+			int width;
+			if (mPagedTitles != null && !mPagedTitles.isLoaded(i)) {
+				//标题尚未加载，使用之前测量的宽度或占位宽度
+				boolean hasWidths = mPagedTitles.hasWidths(i);
+				mTitleWidths[i] = hasWidths ? mPagedTitles.getTitleWidth(i) : placeholderTitleWidth;
+				width = getVirtualTabWidth(hasWidths ? mPagedTitles.getTextWidth(i) : placeholderTextWidth, equalWidth);
+			} else {
+				width = measureLoadedTab(i, maxTextSize, titlePaint, metrics, equalWidth);
+			}
+			mGeometry.setWidth(i, width);
+		}
+		//容器内只有少量tab，靠最小宽度撑开整体的滚动范围
+		mTabsContainer.setMinimumWidth(mGeometry.getTotalWidth());
+	}
+
+	/**
+	 * 测量标题已经可以读取的tab，记录标题宽度，返回tab宽度
+	 */
+	private int measureLoadedTab(int position, float maxTextSize, TextPaint titlePaint, DisplayMetrics metrics, int equalWidth) {
+		CharSequence pageTitle = getPageTitleAt(position);
+		float maxTextWidth = 0;
+		if ((mTabWidth <= 0 && !mIsTabWidthEqual) || mPagedTitles != null) {
+			maxTextWidth = mTitleWidthCache.measure(pageTitle, maxTextSize, mTextSizeType,
+					titlePaint, mTextBold != TEXT_BOLD_NONE, metrics);
+		}
+		mTitleWidths[position] = measureTitle(pageTitle);
+		if (mPagedTitles != null) {
+			mPagedTitles.setWidths(position, maxTextWidth, mTitleWidths[position]);
+		}
+		return getVirtualTabWidth(maxTextWidth, equalWidth);
+	}
+
+	/**
+	 * 按宽度模式计算tab宽度：指定宽度、等分或包裹文字
+	 */
+	private int getVirtualTabWidth(float maxTextWidth, int equalWidth) {
+		if (mTabWidth > 0) {
+			return (int) mTabWidth;
+		}
+		if (mIsTabWidthEqual) {
+			return equalWidth;
+		}
+		return (int) Math.ceil(maxTextWidth + mTabPadding * 2);
+	}
+
+	private int getEqualTabWidth() {
+		return mTabCount > 0 ? (getWidth() - getPaddingLeft() - getPaddingRight()) / mTabCount : 0;
+	}
+
+	/**
+	 * 按页加载时，尚未加载的标题返回null
+	 */
+	private CharSequence getPageTitleAt(int position) {
+		if (mPagedTitles != null) {
+			return mPagedTitles.peek(position);
+		}
+		return mTitles == null ? mViewPager.getAdapter().getPageTitle(position) : mTitles.get(position);
+	}
+
+	/**
+	 * 虚拟化模式下根据当前滚动位置更新已实例化的tab，移出可见范围的tab被回收复用
+	 */
+	private void updateVirtualWindow() {
+		updateVirtualWindow(getScrollX());
+	}
+
+	/**
+	 * @param scrollX 滚动位置，滚动回调中使用回调给出的新位置
+	 */
+	private void updateVirtualWindow(int scrollX) {
+		if (!mIsVirtualized || mIsCanvasMode || mTabCount <= 0) {
+			return;
+		}
+		mVirtualWindow.update(scrollX - getPaddingLeft(), getViewportWidth(), mTabCount);
+	}
+
+	/**
+	 * 按页加载时请求可见范围附近的标题。在滚动位置、尺寸或数据变化后调用，不在绘制和实例化tab的过程中发起请求
+	 */
+	private void requestVisibleTitles() {
+		requestVisibleTitles(getScrollX());
+	}
+
+	private void requestVisibleTitles(int scrollX) {
+		if (mPagedTitles == null || mTabCount <= 0) {
+			return;
+		}
+		int start = scrollX - getPaddingLeft();
+		mPagedTitles.request(mGeometry.indexAt(start) - VirtualTabWindow.MARGIN,
+				mGeometry.indexAt(start + getViewportWidth()) + VirtualTabWindow.MARGIN);
+	}
+
+	/**
+	 * 尚未布局时按屏幕宽度估算可见宽度
+	 */
+	private int getViewportWidth() {
+		return getWidth() > 0 ? getWidth() : getResources().getDisplayMetrics().widthPixels;
+	}
+
+	/**
+	 * 取一个回收的tab(没有则创建)并绑定到指定位置
+	 */
+	private View bindVirtualTab(int position) {
+		View tabView = obtainTabView();
+		rebindVirtualTab(tabView, position);
+		return tabView;
+	}
+
+	/**
+	 * 把tab view绑定到指定位置：标题、样式和宽度
+	 */
+	private void rebindVirtualTab(View tabView, int position) {
+		TabHolder holder = TabHolder.of(tabView);
+		setTitleText(holder, getPageTitleAt(position), position == mSelectedTab);
+		applyTabStyle(holder, position == mSelectedTab);
+		if (mTabBindListener != null) {
+			mTabBindListener.onBindTab(holder, position);
+		}
+
+		ViewGroup.LayoutParams lp = tabView.getLayoutParams();
+		LinearLayout.LayoutParams params;
+		if (lp instanceof LinearLayout.LayoutParams) {
+			params = (LinearLayout.LayoutParams) lp;
+		} else {
+			params = new LinearLayout.LayoutParams(mGeometry.getWidth(position), LinearLayout.LayoutParams.MATCH_PARENT);
+		}
+		if (params != lp || params.width != mGeometry.getWidth(position) || params.weight != 0 || tabView.getParent() == null) {
+			params.width = mGeometry.getWidth(position);
+			params.weight = 0;
+			tabView.setLayoutParams(params);
+		}
+	}
+
+	/**
+	 * 把容器中所有tab放回复用池
+	 */
+	private void releaseAllTabs() {
+		for (int i = mTabsContainer.getChildCount() - 1; i >= 0; i--) {
+			View child = mTabsContainer.getChildAt(i);
+			mTabsContainer.removeViewAt(i);
+			if (!mVirtualWindow.isLeadingSpace(child) && !mStagedBuilder.isSpacer(child)) {
+				mTabViewPool.release(child);
+			}
+		}
+		mVirtualWindow.reset();
+	}
+
+	private View obtainTabView() {
+		View tabView = mTabViewPool.acquire(mContext, mTabLayoutRes);
+		ViewCompat.setAccessibilityDelegate(tabView, getTabAccessibilityDelegate());
+		return tabView;
+	}
+
+	/**
+	 * tab的无障碍代理：提供点击操作和选中状态，TalkBack、Switch Access的点击按tab点击处理
+	 */
+	private AccessibilityDelegateCompat getTabAccessibilityDelegate() {
+		if (mTabAccessibilityDelegate == null) {
+			mTabAccessibilityDelegate = new AccessibilityDelegateCompat() {
+				@Override
+				public void onInitializeAccessibilityNodeInfo(View host, AccessibilityNodeInfoCompat info) {
+					super.onInitializeAccessibilityNodeInfo(host, info);
+					int position = getTabPosition(host);
+					if (position < 0) {
+						return;
+					}
+					info.setClickable(true);
+					info.addAction(AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_CLICK);
+					info.setSelected(position == mCurrentTab);
+				}
+
+				@Override
+				public boolean performAccessibilityAction(View host, int action, Bundle args) {
+					if (action == AccessibilityNodeInfoCompat.ACTION_CLICK) {
+						int position = getTabPosition(host);
+						if (position >= 0) {
+							onTabClick(position);
+							return true;
+						}
+					}
+					return super.performAccessibilityAction(host, action, args);
+				}
+			};
+		}
+		return mTabAccessibilityDelegate;
+	}
+
+	/**
+	 * tab view对应的位置，不在容器中时返回-1
+	 */
+	private int getTabPosition(View tabView) {
+		int index = mTabsContainer.indexOfChild(tabView);
+		if (index < 0 || mIsCanvasMode || mVirtualWindow.isLeadingSpace(tabView) || mStagedBuilder.isSpacer(tabView)) {
+			return -1;
+		}
+		if (mIsVirtualized) {
+			return mVirtualWindow.getPosition(index);
+		}
+		return mStagedBuilder.isBuilding() ? mStagedBuilder.getPosition(index) : index;
+	}
+
+	/**
+	 * 设置tab view复用池，多个SlidingTabLayout使用同一个池时可以互相复用tab view，
+	 * 同一个池只能在同一个Activity内共享
+	 */
+	public void setTabViewPool(TabViewPool pool) {
+		if (pool == null) {
+			throw new IllegalArgumentException("TabViewPool can not be NULL !");
+		}
+		this.mTabViewPool = pool;
+	}
+
+	public TabViewPool getTabViewPool() {
+		return mTabViewPool;
+	}
+
+	private int getTabLeft(int position) {
+		return mGeometry.getLeft(position);
+	}
+
+	private int getTabWidth(int position) {
+		return mGeometry.getWidth(position);
+	}
+
+	/**
+	 * tab位置是否由标题计算得出，而不是读取tab view的布局结果
+	 */
+	private boolean isComputedGeometry() {
+		return mIsVirtualized || mIsCanvasMode;
+	}
+
+	/**
+	 * 获取已实例化的tab，虚拟化模式下不在实例化范围内时返回null，绘制模式下总是返回null
+	 */
+	private View getMaterializedTab(int position) {
+		if (mIsCanvasMode) {
+			return null;
+		}
+		if (!mIsVirtualized) {
+			//分批创建中尚未创建的tab返回null
+			return mStagedBuilder.isBuilding() ? mStagedBuilder.getTab(position) : mTabsContainer.getChildAt(position);
+		}
+		return mVirtualWindow.getTab(position);
+	}
+
+	/**
+	 * 是否开启虚拟化模式，开启后只实例化可见范围内的tab，适用于tab数量很多的情况。
+	 * 不能与分批创建模式同时开启，按页加载标题时不能关闭到view模式
+	 */
+	public void setVirtualized(boolean virtualized) {
+		if (mIsVirtualized == virtualized) {
+			return;
+		}
+		checkModes(virtualized, mIsCanvasMode);
+		mVirtualWindow.recycle();
+		this.mIsVirtualized = virtualized;
+		if (mViewPager != null) {
+			notifyDataSetChanged();
+		}
+	}
+
+	public boolean isVirtualized() {
+		return mIsVirtualized;
+	}
+
+	/**
+	 * 是否开启缩放模式，开启后标题按较大的字号布局一次，滑动过程中只改变缩放，不再触发布局
+	 */
+	public void setTextScaleMode(boolean textScaleMode) {
+		if (mIsTextScaleMode == textScaleMode) {
+			return;
+		}
+		this.mIsTextScaleMode = textScaleMode;
+		onTitleStyleChanged();
+	}
+
+	public boolean isTextScaleMode() {
+		return mIsTextScaleMode;
+	}
+
+	/**
+	 * 是否开启绘制模式，开启后不再创建tab view，所有标题直接绘制，getTabView和getTitleView返回null。
+	 * 与虚拟化模式的限制相同
+	 */
+	public void setCanvasMode(boolean canvasMode) {
+		if (mIsCanvasMode == canvasMode) {
+			return;
+		}
+		checkModes(mIsVirtualized, canvasMode);
+		mVirtualWindow.recycle();
+		this.mIsCanvasMode = canvasMode;
+		if (mViewPager != null) {
+			notifyDataSetChanged();
+		}
+	}
+
+	public boolean isCanvasMode() {
+		return mIsCanvasMode;
+	}
+
+	/**
+	 * 切换模式前检查组合是否支持，不支持时抛出异常，不改变任何状态
+	 */
+	private void checkModes(boolean virtualized, boolean canvasMode) {
+		boolean isComputedGeometry = virtualized || canvasMode;
+		if (isComputedGeometry && mIsStagedTabs) {
+			throw new IllegalStateException("Staged tabs can not be used with virtualized or canvas mode !");
+		}
+		if (!isComputedGeometry && mPagedTitles != null) {
+			throw new IllegalStateException("Paged titles require virtualized or canvas mode !");
+		}
+	}
+
+
+	public View getTabView(int position) {
+		if (position < 0) {
+			return null;
+		}
+		if (position >= mTabCount) {
+			return null;
+		}
+		return getMaterializedTab(position);
+	}
+
+	public TextView getTitleView(int position) {
+		TabHolder holder = getTabHolder(position);
+		return holder == null ? null : holder.getTitleView();
+	}
+
+	/**
+	 * 获取tab的holder，tab未实例化(虚拟化模式不在可见范围内或绘制模式)时返回null
+	 */
+	public TabHolder getTabHolder(int position) {
+		View tabView = getTabView(position);
+		return tabView == null ? null : TabHolder.of(tabView);
+	}
+
+	/**
+	 * 设置自定义tab布局，默认为单个TabItemView的R.layout.layout_tab，布局中需要包含id为tv_tab_title的TextView，
+	 * 图标、角标等其他子view在listener中通过TabHolder.getView设置
+	 * @param layoutRes tab布局
+	 * @param listener 绑定回调，可以为null
+	 */
+	public void setTabLayout(int layoutRes, OnTabBindListener listener) {
+		this.mTabLayoutRes = layoutRes;
+		this.mTabBindListener = listener;
+		mTitlePaint = null;
+		if (mViewPager != null) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * 设置tab样式
+	 */
+	private void updateTabStyles() {
+		for (int i = 0; i < mTabCount; i++) {
+			TabHolder holder = getTabHolder(i);
+			if (holder == null) {
+				if (mIsVirtualized || mStagedBuilder.isBuilding()) {
+					continue;
+				}
+				break;
+			}
+			applyTabStyle(holder, i == mSelectedTab);
+		}
+	}
+
+	/**
+	 * 设置单个tab的样式
+	 */
+	private void applyTabStyle(TabHolder holder, boolean isSelect) {
+		TextView title = holder.getTitleView();
+		holder.mIsSelected = isSelect;
+		holder.mIsStyleDirty = false;
+		title.setTextColor(isSelect ? mTextSelectColor : mTextUnSelectColor);
+		setTitleSize(title, isSelect ? mTextSelectSize : mTextUnSelectSize);
+		//TextView.setPadding即使数值不变也会重绘，滑动中切换选中时不重复设置
+		int padding = (int)mTabPadding;
+		if (title.getPaddingLeft() != padding || title.getPaddingRight() != padding
+				|| title.getPaddingTop() != 0 || title.getPaddingBottom() != 0) {
+			title.setPadding(padding, 0, padding, 0);
+		}
+		setTitleBold(title, mTextBold == TEXT_BOLD_BOTH || (mTextBold == TEXT_BOLD_SELCET && isSelect));
+	}
+
+	/**
+	 * 设置标题粗体，默认的TabItemView状态不变时不重绘
+	 */
+	private void setTitleBold(TextView title, boolean bold) {
+		if (title instanceof TabItemView) {
+			((TabItemView) title).setFakeBold(bold);
+			return;
+		}
+		title.getPaint().setFakeBoldText(bold);
+		//设置后一定要刷新，否则无效
+		title.postInvalidate();
+	}
+
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		if (isComputedGeometry() && mTabCount > 0) {
+			if (mIsTabWidthEqual && mTabWidth <= 0) {
+				measureVirtualTabs();
+				mVirtualWindow.recycle();
+			}
+			updateVirtualWindow();
+			requestVisibleTitles();
+		}
+	}
+
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+		super.onScrollChanged(l, t, oldl, oldt);
+		if (mIsFlinging) {
+			mLastFlingScrollTime = SystemClock.uptimeMillis();
+		}
+		//按回调给出的新位置计算，不依赖getScrollX()在回调时是否已经更新
+		updateVirtualWindow(l);
+		requestVisibleTitles(l);
+	}
+
+	@Override
+	public void fling(int velocityX) {
+		super.fling(velocityX);
+		mIsFlinging = true;
+		mLastFlingScrollTime = SystemClock.uptimeMillis();
+	}
+
+	@Override
+	public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+		long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.ON_PAGE_SCROLLED);
+		handlePageScrolled(position, positionOffset, positionOffsetPixels);
+		if (mMetrics != null) {
+			mMetrics.end(TabStripMetrics.ON_PAGE_SCROLLED, start);
+		}
+	}
+
+	private void handlePageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+		if (mJumpAnimator.isRunning()) {
+			//跳转中经过的页不做过渡
+			return;
+		}
+		if (positionOffsetPixels != 0 && isFrameDriven()) {
+			if (mIsFrameExtrapolated) {
+				//绘制使用的位置在帧回调中计算
+				addSample(System.nanoTime(), position, positionOffset);
+			} else {
+				this.mCurrentTab = position;
+				this.mCurrentPositionOffset = positionOffset;
+			}
+			//选中状态的判断每次回调都要执行，其余工作留到帧回调
+			getTargetPosition(position, positionOffsetPixels);
+			scheduleFrame();
+			return;
+		}
+		//选中时同步处理，保证每次选中都按顺序生效
+		cancelFrame();
+		this.mCurrentTab = position;
+		this.mCurrentPositionOffset = positionOffset;
+		scrollToCurrentTab();
+		getTargetPosition(position, positionOffsetPixels);
+
+		invalidateTitles();
+	}
+
+	private void scheduleFrame() {
+		if (!mIsFrameScheduled) {
+			mIsFrameScheduled = true;
+			Choreographer.getInstance().postFrameCallback(mFrameCallback);
+		}
+	}
+
+	private void cancelFrame() {
+		if (mIsFrameScheduled) {
+			mIsFrameScheduled = false;
+			Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+		}
+		mPendingTransitionFrom = -1;
+		mSampleCount = 0;
+	}
+
+	private boolean isFrameDriven() {
+		return mIsFrameCoalesced || mIsFrameExtrapolated;
+	}
+
+	private void addSample(long timeNanos, int position, float positionOffset) {
+		mSampleHead = (mSampleHead + 1) % SAMPLE_SIZE;
+		mSampleTimes[mSampleHead] = timeNanos;
+		mSampleValues[mSampleHead] = position + positionOffset;
+		if (mSampleCount < SAMPLE_SIZE) {
+			mSampleCount++;
+		}
+		mSamplePosition = position;
+		mSampleOffset = positionOffset;
+	}
+
+	/**
+	 * 第age新的采样在环形缓存中的下标，0为最新
+	 */
+	private int sampleIndex(int age) {
+		return (mSampleHead - age + SAMPLE_SIZE) % SAMPLE_SIZE;
+	}
+
+	/**
+	 * 按帧的vsync时间计算绘制使用的位置：在采样之间时线性插值，晚于最新采样时按速度外推，
+	 * 外推时间和范围都有限制，不会越过最新采样所在的页
+	 * @return 采样已过期、位置已回到真实值时返回true
+	 */
+	private boolean applyFrameSample(long frameTimeNanos) {
+		int newest = mSampleHead;
+		long newestTime = mSampleTimes[newest];
+		float value = mSampleValues[newest];
+		boolean isSettled = false;
+		if (frameTimeNanos <= newestTime) {
+			for (int age = 1; age < mSampleCount; age++) {
+				int older = sampleIndex(age);
+				int newer = sampleIndex(age - 1);
+				if (mSampleTimes[older] <= frameTimeNanos) {
+					long span = mSampleTimes[newer] - mSampleTimes[older];
+					float fraction = span > 0 ? (float) (frameTimeNanos - mSampleTimes[older]) / span : 1f;
+					value = mSampleValues[older] + (mSampleValues[newer] - mSampleValues[older]) * fraction;
+					break;
+				}
+				//早于所有采样
+				value = mSampleValues[older];
+			}
+		} else if (frameTimeNanos - newestTime > MAX_EXTRAPOLATION_NANOS * 2) {
+			isSettled = true;
+		} else if (mSampleCount > 1) {
+			int previous = sampleIndex(1);
+			long span = newestTime - mSampleTimes[previous];
+			if (span > 0) {
+				float velocity = (value - mSampleValues[previous]) / span;
+				value += velocity * Math.min(frameTimeNanos - newestTime, MAX_EXTRAPOLATION_NANOS);
+			}
+		}
+
+		float offset = value - mSamplePosition;
+		if (isSettled) {
+			offset = mSampleOffset;
+		}
+		//文字过渡的两个tab由真实位置决定，绘制位置不能越过这一页
+		mCurrentTab = mSamplePosition;
+		mCurrentPositionOffset = Math.max(0f, Math.min(offset, 0.999f));
+		return isSettled;
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		cancelFrame();
+		if (mJumpAnimator.isRunning()) {
+			finishJump();
+		}
+	}
+
+	/**
+	 * 是否开启按帧合并模式，开启后一帧内的多次滑动回调只做一次滚动、文字过渡和重绘，选中仍同步处理
+	 */
+	public void setFrameCoalesced(boolean frameCoalesced) {
+		if (!frameCoalesced) {
+			cancelFrame();
+		}
+		this.mIsFrameCoalesced = frameCoalesced;
+	}
+
+	public boolean isFrameCoalesced() {
+		return mIsFrameCoalesced;
+	}
+
+	/**
+	 * 是否开启按帧插值模式，开启后指示器和文字过渡按每帧的vsync时间插值绘制，
+	 * 在高刷新率屏幕上不依赖ViewPager回调的时机
+	 */
+	public void setFrameExtrapolated(boolean frameExtrapolated) {
+		if (!frameExtrapolated) {
+			cancelFrame();
+		}
+		this.mIsFrameExtrapolated = frameExtrapolated;
+	}
+
+	public boolean isFrameExtrapolated() {
+		return mIsFrameExtrapolated;
+	}
+
+	/**
+	 * 设置耗时统计回调，不为null时开启统计并输出Trace区段，为null时关闭。
+	 * 滑动停止和数据更新后回调累计的统计
+	 */
+	public void setMetricsListener(OnMetricsListener listener) {
+		this.mMetricsListener = listener;
+		if (listener == null) {
+			mMetrics = null;
+		} else if (mMetrics == null) {
+			mMetrics = new TabStripMetrics();
+		}
+	}
+
+	/**
+	 * 当前的耗时统计，未开启时返回null
+	 */
+	public TabStripMetrics getMetrics() {
+		return mMetrics;
+	}
+
+	/**
+	 * 回调统计结果，超出每帧上限时只输出警告，不影响运行
+	 */
+	private void reportMetrics() {
+		String violation = mMetrics.getBudgetViolation();
+		if (violation != null) {
+			Log.w(TAG, violation);
+		}
+		if (mMetricsListener != null) {
+			mMetricsListener.onMetricsReport(mMetrics);
+		}
+	}
+
+	/**
+	 * 数据更新期间的requestLayout、invalidate等单独统计，不计入滑动时每帧的次数
+	 */
+	private void beginUpdate() {
+		if (mMetrics != null) {
+			mMetrics.beginUpdate();
+		}
+	}
+
+	private void endUpdate() {
+		if (mMetrics != null) {
+			mMetrics.endUpdate();
+		}
+	}
+
+	@Override
+	public void requestLayout() {
+		//构造过程中父类会调用，此时统计尚未初始化
+		if (mMetrics != null) {
+			mMetrics.count(TabStripMetrics.COUNTER_REQUEST_LAYOUT);
+		}
+		super.requestLayout();
+	}
+
+	@Override
+	public void invalidate() {
+		if (mMetrics != null) {
+			mMetrics.count(TabStripMetrics.COUNTER_INVALIDATE);
+		}
+		super.invalidate();
+	}
+
+	@Override
+	public void scrollTo(int x, int y) {
+		if (mMetrics != null) {
+			mMetrics.count(TabStripMetrics.COUNTER_SCROLL_TO);
+		}
+		super.scrollTo(x, y);
+	}
+
+	@Override
+	public void onPageSelected(int position) {
+//		updateTabSelection(position);
+	}
+
+	@Override
+	public void onPageScrollStateChanged(int state) {
+		if (state == ViewPager.SCROLL_STATE_IDLE) {
+			mJumpAnimator.onPagerIdle();
+		}
+		if (state == ViewPager.SCROLL_STATE_IDLE && mMetrics != null) {
+			reportMetrics();
+		}
+		if (state == ViewPager.SCROLL_STATE_IDLE && mSampleCount > 0) {
+			//停止时回到真实位置
+			mCurrentTab = mSamplePosition;
+			mCurrentPositionOffset = mSampleOffset;
+			if (mPendingTransitionFrom >= 0) {
+				changeTextSize(mPendingTransitionFrom, mPendingTransitionTo);
+			}
+			cancelFrame();
+			scrollToCurrentTab();
+			invalidateTitles();
+		}
+	}
+
+	//滑动或者点击时之前选中的tab
+	private final SwipeTracker mSwipeTracker = new SwipeTracker();
+
+	/**
+	 * 判断目标tab是上一个还是下一个
+	 * @param position 滑动时vp给的position
+	 * @param positionOffsetPixels 滑动像素
+	 */
+	private void getTargetPosition(int position, int positionOffsetPixels) {
+		int chosen = mSwipeTracker.getChosenPosition();
+		switch (mSwipeTracker.onPageScrolled(position, positionOffsetPixels)) {
+			case SwipeTracker.SETTLED:
+				updateTabSelection(position);
+				break;
+			case SwipeTracker.TOWARD_NEXT:
+				requestTextTransition(chosen, chosen + 1);
+				break;
+			case SwipeTracker.TOWARD_PREVIOUS:
+				requestTextTransition(chosen, chosen - 1);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * 按帧合并或插值模式下只记录最新的过渡，在帧回调中执行
+	 */
+	private void requestTextTransition(int thisPosition, int nextPosition) {
+		if (isFrameDriven()) {
+			mPendingTransitionFrom = thisPosition;
+			mPendingTransitionTo = nextPosition;
+		} else {
+			changeTextSize(thisPosition, nextPosition);
+		}
+	}
+
+	/**
+	 * 改变文字大小及颜色加粗等
+	 * @param thisPosition 当前tab
+	 * @param nextPosition 目标tab
+	 */
+	private void changeTextSize(int thisPosition, int nextPosition) {
+		boolean isNext = nextPosition > thisPosition;
+		changeTextSize(thisPosition, nextPosition, isNext ? mCurrentPositionOffset : (1 - mCurrentPositionOffset));
+	}
+
+	/**
+	 * @param fraction 从当前tab到目标tab的过渡进度
+	 */
+	private void changeTextSize(int thisPosition, int nextPosition, float fraction) {
+		if (mIsCanvasMode) {
+			//绘制模式只记录过渡状态，onPageScrolled中统一重绘
+			mTitleRenderer.setTransition(thisPosition, nextPosition, fraction);
+			return;
+		}
+		TabHolder currentHolder = getTabHolder(thisPosition);
+		TabHolder nextHolder = getTabHolder(nextPosition);
+		//虚拟化模式下tab可能尚未实例化，实例化时会按选中状态重新设置样式
+		if (currentHolder == null || nextHolder == null) {
+			return;
+		}
+		markStyleDirty(currentHolder);
+		markStyleDirty(nextHolder);
+		TextView currentText = currentHolder.getTitleView();
+		TextView nextText = nextHolder.getTitleView();
+
+		TransitionCurve curve = getTransitionCurve();
+		if (mTextUnSelectSize != mTextSelectSize) {
+			//文字大小渐变
+			setTitleSize(currentText, curve.leaveSize(fraction));
+			setTitleSize(nextText, curve.enterSize(fraction));
+		}
+
+		//设定滑动50%开始改变粗体
+		boolean startChangeBold = fraction > 0.5;
+		if (startChangeBold && mTextBold == TEXT_BOLD_SELCET && !nextText.getPaint().isFakeBoldText()) {
+			setTitleBold(currentText, false);
+			setTitleBold(nextText, true);
+		}
+
+		//文字颜色渐变
+		setTitleColor(currentText, curve.leaveColor(fraction));
+		setTitleColor(nextText, curve.enterColor(fraction));
+	}
+
+	private void markStyleDirty(TabHolder holder) {
+		if (!holder.mIsStyleDirty) {
+			holder.mIsStyleDirty = true;
+			mDirtyHolders.add(holder);
+		}
+	}
+
+	/**
+	 * 获取过渡曲线，样式变化后重新生成
+	 */
+	private TransitionCurve getTransitionCurve() {
+		if (mTransitionCurve == null) {
+			mTransitionCurve = new TransitionCurve(mTextSelectColor, mTextUnSelectColor,
+					mTextSelectSize, mTextUnSelectSize, mTransitionEasing, mTransitionColorSpace);
+		}
+		return mTransitionCurve;
+	}
+
+	/**
+	 * 设置标题字号。缩放模式下字号固定为布局字号，只改变缩放比例；
+	 * 缩放中心使用默认的view中心，标题在tab内居中，与直接改变字号时的居中和基线位置一致
+	 */
+	private void setTitleSize(TextView title, float textSize) {
+		if (!mIsTextScaleMode) {
+			title.setTextSize(mTextSizeType, textSize);
+			//复用池中的view可能来自缩放模式
+			if (title.getScaleX() != 1f) {
+				title.setScaleX(1f);
+				title.setScaleY(1f);
+			}
+			return;
+		}
+		float layoutSize = getLayoutTextSize();
+		//字号未变化时TextView不会重新布局
+		title.setTextSize(mTextSizeType, layoutSize);
+		float scale = layoutSize > 0 ? textSize / layoutSize : 1f;
+		if (title.getScaleX() != scale) {
+			title.setScaleX(scale);
+			title.setScaleY(scale);
+		}
+	}
+
+	/**
+	 * 缩放模式下标题布局使用的字号
+	 */
+	private float getLayoutTextSize() {
+		return Math.max(mTextSelectSize, mTextUnSelectSize);
+	}
+
+	/**
+	 * 颜色未变化时不重复设置，避免无效的刷新。TabItemView复用颜色对象，每帧变色不分配内存
+	 */
+	private void setTitleColor(TextView title, int color) {
+		if (title instanceof TabItemView) {
+			((TabItemView) title).setTransitionColor(color);
+		} else if (title.getCurrentTextColor() != color) {
+			title.setTextColor(color);
+		}
+	}
+
+	private int mLastScrollX;
 
-		// 绘制指示器
+	/**
+	 * 滚动到当前位置并且居中(如果可以)
+	 */
+	private void scrollToCurrentTab() {
+		if (mTabCount <= 0) {
+			return;
+		}
+		long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.SCROLL_TO_CURRENT_TAB);
 		calcIndicatorRect();
-		if (mIndicatorWidth >= 0){
-			// 设置渐变色
-			if (mIndicatorStartColor != 0 && mIndicatorEndColor != 0) {
-				mIndicatorDrawable.setGradientType(GradientDrawable.LINEAR_GRADIENT);
-				mIndicatorDrawable.setOrientation(GradientDrawable.Orientation.LEFT_RIGHT);
-				if (mIndicatorCenterColor != 0) {
-					mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorCenterColor, mIndicatorEndColor});
-				} else {
-					mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorEndColor});
+		moveIndicator();
+		//HorizontalScrollView移动到当前tab,并居中
+		int newScrollX = TabStripMath.calcCenterScrollX(mGeometry, mCurrentTab, mCurrentPositionOffset,
+				mIndicatorBounds, getWidth(), getPaddingLeft());
+
+		if (newScrollX != mLastScrollX) {
+			mLastScrollX = newScrollX;
+			/** scrollTo（int x,int y）:x,y代表的不是坐标点,而是偏移量
+			 *  x:表示离起始位置的x水平方向的偏移量
+			 *  y:表示离起始位置的y垂直方向的偏移量
+			 */
+			scrollTo(newScrollX, 0);
+		}
+		updateVirtualWindow();
+		if (mMetrics != null) {
+			mMetrics.end(TabStripMetrics.SCROLL_TO_CURRENT_TAB, start);
+		}
+	}
+
+
+	/**
+	 * 更新目标tab样式
+	 */
+	private void updateTabSelection(int position) {
+		if (mIsCanvasMode) {
+			resetCanvasTransition();
+			return;
+		}
+		long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.UPDATE_TAB_SELECTION);
+		TabHolder selected = getTabHolder(position);
+		//只恢复滑动中改变过样式的tab和上次选中的tab，与tab数量无关
+		for (int i = 0; i < mDirtyHolders.size(); i++) {
+			TabHolder holder = mDirtyHolders.get(i);
+			//已被回收重新绑定的tab不再是脏的
+			if (holder.mIsStyleDirty && holder != selected) {
+				applyTabStyle(holder, false);
+			}
+		}
+		mDirtyHolders.clear();
+		TabHolder lastSelected = getTabHolder(mSelectedTab);
+		if (lastSelected != null && lastSelected != selected && lastSelected.mIsSelected) {
+			applyTabStyle(lastSelected, false);
+		}
+		if (selected != null && (selected.mIsStyleDirty || !selected.mIsSelected)) {
+			applyTabStyle(selected, true);
+		}
+		mSelectedTab = position;
+		if (mMetrics != null) {
+			mMetrics.end(TabStripMetrics.UPDATE_TAB_SELECTION, start);
+		}
+	}
+
+	/**
+	 * 配置指示器位置
+	 */
+	private void calcIndicatorRect() {
+		long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.CALC_INDICATOR_RECT);
+		if (mJumpAnimator.isRunning()) {
+			//跳转中在起点和终点之间插值
+			mJumpAnimator.interpolate(mIndicatorBounds);
+		} else {
+			float currentTitleWidth = 0;
+			float nextTitleWidth = 0;
+			if (mIsIndicatorWidthEqualTitle) {
+				currentTitleWidth = getTitleWidth(mCurrentTab);
+				if (mCurrentTab < mTabCount - 1) {
+					nextTitleWidth = getTitleWidth(mCurrentTab + 1);
 				}
-			} else {
-				mIndicatorDrawable.setColor(mIndicatorColor);
 			}
+			TabStripMath.calcIndicator(mGeometry, mCurrentTab, mCurrentPositionOffset, mIsIndicatorWidthEqualTitle,
+					currentTitleWidth, nextTitleWidth, mIndicatorWidth, mIndicatorBounds);
+		}
+		mIndicatorRect.left = mIndicatorBounds.indicatorLeft;
+		mIndicatorRect.right = mIndicatorBounds.indicatorRight;
+		mTabRect.left = mIndicatorBounds.tabLeft;
+		mTabRect.right = mIndicatorBounds.tabRight;
+		if (mMetrics != null) {
+			mMetrics.end(TabStripMetrics.CALC_INDICATOR_RECT, start);
+		}
+	}
+
+	/**
+	 * 标题文字宽度，虚拟化和绘制模式下使用预先计算的宽度
+	 */
+	private float getTitleWidth(int position) {
+		if (isComputedGeometry()) {
+			//切换模式的过程中位置表可能尚未计算
+			return mTitleWidths != null && position < mTitleWidths.length ? mTitleWidths[position] : 0;
+		}
+		TabHolder holder = getTabHolder(position);
+		return holder == null ? 0 : holder.mTitleWidth;
+	}
+
+	/** 跨页跳转模式：点击相隔多页的tab时不逐页过渡，指示器、居中滚动和两个标题由一次动画完成 */
+	private boolean mIsFarJumpAnimated = false;
+	private JumpAnimator mJumpAnimator;
+	//跳转终点的指示器位置，开始跳转时计算
+	private final IndicatorBounds mJumpEndBounds = new IndicatorBounds();
+
+	@Override
+	protected int getChildDrawingOrder(int childCount, int i) {
+		//指示器是最后添加的子view，最先绘制
+		return childCount - 1 - i;
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		super.dispatchDraw(canvas);
+		//绘制模式的标题画在指示器上面
+		if (!mIsCanvasMode || isInEditMode() || mTabCount <= 0) {
+			return;
+		}
+		long start = mMetrics == null ? 0 : mMetrics.begin(TabStripMetrics.ON_DRAW);
+		drawTitles(canvas);
+		if (mMetrics != null) {
+			mMetrics.end(TabStripMetrics.ON_DRAW, start);
+		}
+	}
+
+	/**
+	 * 绘制模式下标题画在tab栏上，需要重绘tab栏；view模式下tab和指示器各自重绘
+	 */
+	private void invalidateTitles() {
+		if (mIsCanvasMode) {
+			invalidate();
+		}
+	}
+
+	/**
+	 * 绘制模式下绘制可见范围内的标题，样式在标题样式或颜色变化后重新设置
+	 */
+	private void drawTitles(Canvas canvas) {
+		if (!mTitleRenderer.hasStyle()) {
+			mTitleRenderer.setStyle(getTitlePaint(), mTextSizeType, mTextSelectSize, mTextUnSelectSize,
+					mTextSelectColor, mTextUnSelectColor, mTextBold, getResources().getDisplayMetrics());
+		}
+		int paddingLeft = getPaddingLeft();
+		float centerY = getPaddingTop() + (getHeight() - getPaddingTop() - getPaddingBottom()) / 2f;
+		mTitleRenderer.draw(canvas, getTransitionCurve(), mSwipeTracker.getChosenPosition(),
+				getScrollX() - paddingLeft, getWidth(), paddingLeft, centerY);
+	}
+
+	/**
+	 * 清除绘制模式下的过渡状态，按选中项重绘
+	 */
+	private void resetCanvasTransition() {
+		mTitleRenderer.resetTransition();
+		if (mIsCanvasMode) {
+			invalidate();
+		}
+	}
+
+	@Override
+	public boolean onTouchEvent(MotionEvent ev) {
+		if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+			//最近两帧内还在惯性滚动，这次按下是为了停止滚动
+			mIsTapStoppingFling = mIsFlinging && SystemClock.uptimeMillis() - mLastFlingScrollTime < FLING_STOP_TIMEOUT;
+			mIsFlinging = false;
+		}
+		if (mTabCount > 0) {
+			if (mGestureDetector == null) {
+				mGestureDetector = new GestureDetector(mContext, new GestureDetector.SimpleOnGestureListener() {
+					@Override
+					public boolean onSingleTapUp(MotionEvent e) {
+						if (mIsTapStoppingFling) {
+							return true;
+						}
+						//点击位置换算为内容坐标后查找所在的tab
+						int position = mGeometry.hitTest((int) e.getX() + getScrollX() - getPaddingLeft());
+						if (position >= 0) {
+							mPendingClickPosition = position;
+							performClick();
+						}
+						return true;
+					}
+				});
+			}
+			mGestureDetector.onTouchEvent(ev);
+		}
+		return super.onTouchEvent(ev);
+	}
 
-			if (mIndicatorGravity == Gravity.BOTTOM) {
-				mIndicatorDrawable.setBounds(
-						paddingLeft + (int) mIndicatorMarginLeft + mIndicatorRect.left,
-						height - (int) mIndicatorHeight - mIndicatorRect.bottom,
-						paddingLeft + mIndicatorRect.right - (int) mIndicatorMarginRight,
-						height - (int) mIndicatorMarginBottom);
+	@Override
+	public boolean performClick() {
+		boolean handled = super.performClick();
+		int position = mPendingClickPosition;
+		mPendingClickPosition = -1;
+		if (position >= 0 && position < mTabCount) {
+			onTabClick(position);
+			return true;
+		}
+		return handled;
+	}
 
+	/**
+	 * 设置指示器的颜色、渐变和圆角，只在初始化或属性变化时调用，不在onDraw中设置
+	 */
+	private void updateIndicatorDrawable() {
+		// 设置渐变色
+		if (mIndicatorStartColor != 0 && mIndicatorEndColor != 0) {
+			mIndicatorDrawable.setGradientType(GradientDrawable.LINEAR_GRADIENT);
+			mIndicatorDrawable.setOrientation(GradientDrawable.Orientation.LEFT_RIGHT);
+			if (mIndicatorCenterColor != 0) {
+				mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorCenterColor, mIndicatorEndColor});
 			} else {
-				mIndicatorDrawable.setBounds(
-						paddingLeft + (int) mIndicatorMarginLeft + mIndicatorRect.left,
-						(int) mIndicatorMarginTop,
-						paddingLeft + mIndicatorRect.right - (int) mIndicatorMarginRight,
-						height - (int) mIndicatorMarginBottom);
+				mIndicatorDrawable.setColors(new int[]{mIndicatorStartColor, mIndicatorEndColor});
 			}
-			mIndicatorDrawable.setCornerRadius(mIndicatorCornerRadius);
-			mIndicatorDrawable.draw(canvas);
+		} else {
+			mIndicatorDrawable.setColor(mIndicatorColor);
+		}
+		//drawable是指示器view的背景，变化时由指示器view重绘
+		mIndicatorDrawable.setCornerRadius(mIndicatorCornerRadius);
+	}
+
+	/**
+	 * 按当前位置重新计算并移动指示器
+	 */
+	private void updateIndicator() {
+		if (mTabCount > 0) {
+			calcIndicatorRect();
 		}
+		moveIndicator();
+	}
+
+	/**
+	 * 按mIndicatorRect移动指示器view：位置只设置平移，尺寸变化时直接重新布局指示器view，
+	 * 不请求tab栏重新布局，也不重绘tab栏
+	 */
+	private void moveIndicator() {
+		if (mTabCount <= 0 || mIndicatorWidth < 0) {
+			mIndicatorView.setVisibility(INVISIBLE);
+			return;
+		}
+		mIndicatorView.setVisibility(VISIBLE);
+		int height = getHeight();
+		int left = getPaddingLeft() + (int) mIndicatorMarginLeft + mIndicatorRect.left;
+		int right = getPaddingLeft() + mIndicatorRect.right - (int) mIndicatorMarginRight;
+		int bottom = height - (int) mIndicatorMarginBottom;
+		int top;
+		if (mIndicatorGravity == Gravity.BOTTOM) {
+			top = height - (int) mIndicatorHeight - mIndicatorRect.bottom;
+		} else {
+			top = (int) mIndicatorMarginTop;
+		}
+		int width = Math.max(0, right - left);
+		int indicatorHeight = Math.max(0, bottom - top);
+		if (mIndicatorView.getLeft() != 0 || mIndicatorView.getTop() != 0
+				|| mIndicatorView.getWidth() != width || mIndicatorView.getHeight() != indicatorHeight) {
+			mIndicatorView.layout(0, 0, width, indicatorHeight);
+		}
+		mIndicatorView.setTranslationX(left);
+		mIndicatorView.setTranslationY(top);
+	}
+
+	/**
+	 * 指示器view，测试中读取位置
+	 */
+	View getIndicatorView() {
+		return mIndicatorView;
+	}
+
+	public void setIndicatorColor(int indicatorColor) {
+		this.mIndicatorColor = indicatorColor;
+		updateIndicatorDrawable();
+	}
+
+	/**
+	 * 设置指示器渐变色，startColor和endColor都不为0时生效，centerColor为0表示不使用中间色
+	 */
+	public void setIndicatorGradientColors(int startColor, int centerColor, int endColor) {
+		this.mIndicatorStartColor = startColor;
+		this.mIndicatorCenterColor = centerColor;
+		this.mIndicatorEndColor = endColor;
+		updateIndicatorDrawable();
+	}
+
+	public void setIndicatorCornerRadius(float indicatorCornerRadius) {
+		this.mIndicatorCornerRadius = indicatorCornerRadius;
+		updateIndicatorDrawable();
 	}
 
 
@@ -599,6 +2440,62 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 
 	}
 
+	public void setTextSelectSize(float textSelectSize) {
+		this.mTextSelectSize = textSelectSize;
+		onTitleStyleChanged();
+	}
+
+	public void setTextUnSelectSize(float textUnSelectSize) {
+		this.mTextUnSelectSize = textUnSelectSize;
+		onTitleStyleChanged();
+	}
+
+	/**
+	 * @param textSizeType 字号单位，TypedValue.COMPLEX_UNIT_*
+	 */
+	public void setTextSizeType(int textSizeType) {
+		this.mTextSizeType = textSizeType;
+		onTitleStyleChanged();
+	}
+
+	/**
+	 * @param textBold TEXT_BOLD_SELCET、TEXT_BOLD_BOTH或TEXT_BOLD_NONE
+	 */
+	public void setTextBold(int textBold) {
+		this.mTextBold = textBold;
+		onTitleStyleChanged();
+	}
+
+	public void setTextSelectColor(int textSelectColor) {
+		this.mTextSelectColor = textSelectColor;
+		mTransitionCurve = null;
+		mTitleRenderer.clearStyle();
+		updateTabStyles();
+	}
+
+	public void setTextUnSelectColor(int textUnSelectColor) {
+		this.mTextUnSelectColor = textUnSelectColor;
+		mTransitionCurve = null;
+		mTitleRenderer.clearStyle();
+		updateTabStyles();
+	}
+
+	/**
+	 * 设置标题滑动过渡的缓动函数，默认线性
+	 */
+	public void setTransitionEasing(TransitionCurve.Easing easing) {
+		this.mTransitionEasing = easing == null ? TransitionCurve.LINEAR : easing;
+		mTransitionCurve = null;
+	}
+
+	/**
+	 * @param colorSpace 标题颜色插值空间，TransitionCurve.COLOR_SPACE_SRGB(默认)或COLOR_SPACE_OKLAB
+	 */
+	public void setTransitionColorSpace(int colorSpace) {
+		this.mTransitionColorSpace = colorSpace;
+		mTransitionCurve = null;
+	}
+
 
 	@Override
 	protected Parcelable onSaveInstanceState() {
@@ -614,7 +2511,7 @@ public class SlidingTabLayout extends HorizontalScrollView implements ViewPager.
 			Bundle bundle = (Bundle) state;
 			mCurrentTab = bundle.getInt("mCurrentTab");
 			state = bundle.getParcelable("instanceState");
-			if (mCurrentTab != 0 && mTabsContainer.getChildCount() > 0) {
+			if (mCurrentTab != 0 && mTabCount > 0) {
 				updateTabSelection(mCurrentTab);
 				scrollToCurrentTab();
 			}
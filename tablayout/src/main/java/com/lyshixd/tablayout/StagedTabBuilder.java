@@ -0,0 +1,260 @@
+package com.lyshixd.tablayout;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import com.lyshixd.tabcore.TabGeometry;
+
+/**
+ *@Description: 分批创建tab。同步只创建当前tab附近填满可见范围的tab，其余先用首尾两个占位view按估算宽度撑开位置，
+ * 在主线程空闲时分批创建。创建中位置p的tab在容器中的下标为p - first + 1，全部创建后移除占位view，下标就是位置
+ */
+class StagedTabBuilder {
+
+	/**
+	 * tab的创建和选中状态由SlidingTabLayout提供
+	 */
+	interface Host {
+		/**
+		 * 创建位置position的tab并放到容器的index处
+		 * @return 估算的tab宽度
+		 */
+		int addStagedTab(int position, int index);
+
+		int getCurrentTab();
+
+		/**
+		 * 当前tab之前创建了新的tab，实际宽度与估算不同时当前tab的位置会变化
+		 */
+		void onLeadingTabsBuilt();
+	}
+
+	//每次空闲时创建tab的时间上限
+	private static final long BATCH_NANOS = 4000000L;
+
+	private final ViewGroup mContainer;
+	private final Host mHost;
+	private MessageQueue.IdleHandler mIdleHandler;
+	//已创建的连续范围，小于0表示没有在分批创建
+	private int mFirst = -1;
+	private int mLast = -1;
+	private int mTabCount;
+	//尚未创建的tab按这个宽度估算，等分模式下不使用
+	private int mEstimateWidth;
+	//指定的tab宽度和是否等分，决定占位view的宽度
+	private int mTabWidth;
+	private boolean mIsTabWidthEqual;
+	//已创建范围前后的占位view，宽度为尚未创建的tab数乘以估算宽度
+	private View mLeading;
+	private View mTrailing;
+
+	StagedTabBuilder(ViewGroup container, Host host) {
+		this.mContainer = container;
+		this.mHost = host;
+	}
+
+	/**
+	 * 从当前tab向两边扩展，同步创建覆盖两倍可见宽度的tab，只估算这些tab的宽度；
+	 * 其余tab不读取标题，由首尾两个占位view撑开位置。容器需要已清空
+	 * @param tabWidth 指定的tab宽度，小于等于0为不指定
+	 */
+	void build(int tabCount, int viewportWidth, int tabWidth, boolean isTabWidthEqual) {
+		cancel();
+		if (tabCount <= 0) {
+			return;
+		}
+		mTabCount = tabCount;
+		mTabWidth = tabWidth;
+		mIsTabWidthEqual = isTabWidthEqual;
+		int current = Math.max(0, Math.min(mHost.getCurrentTab(), tabCount - 1));
+		if (mLeading == null) {
+			mLeading = new View(mContainer.getContext());
+			mTrailing = new View(mContainer.getContext());
+		}
+		//先放好首尾占位view，tab插在两者之间，创建过程中容器里的范围始终与first、last一致
+		mContainer.addView(mLeading, new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT));
+		mContainer.addView(mTrailing, new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT));
+		int covered = mHost.addStagedTab(current, 1);
+		mFirst = current;
+		mLast = current;
+		int margin = 0;
+		//覆盖两倍可见宽度后两侧再多创建VirtualTabWindow.MARGIN个
+		while ((covered < viewportWidth * 2 || margin++ < VirtualTabWindow.MARGIN)
+				&& (mFirst > 0 || mLast < tabCount - 1)) {
+			if (mFirst > 0) {
+				covered += mHost.addStagedTab(mFirst - 1, 1);
+				mFirst--;
+			}
+			if (mLast < tabCount - 1) {
+				covered += mHost.addStagedTab(mLast + 1, mLast - mFirst + 2);
+				mLast++;
+			}
+		}
+		mEstimateWidth = covered / (mLast - mFirst + 1);
+		if (mFirst == 0 && mLast == tabCount - 1) {
+			finish();
+			return;
+		}
+		updateSpacers();
+		schedule();
+	}
+
+	private void schedule() {
+		if (mIdleHandler != null || mFirst < 0) {
+			return;
+		}
+		mIdleHandler = new MessageQueue.IdleHandler() {
+			@Override
+			public boolean queueIdle() {
+				if (mIdleHandler != this) {
+					return false;
+				}
+				buildPending(BATCH_NANOS);
+				if (mFirst < 0) {
+					mIdleHandler = null;
+					return false;
+				}
+				return true;
+			}
+		};
+		Looper.myQueue().addIdleHandler(mIdleHandler);
+	}
+
+	/**
+	 * 已创建范围向离当前tab较近的一侧扩展，同时缩小对应的占位view
+	 * @param budgetNanos 时间上限，小于0时全部创建
+	 */
+	private void buildPending(long budgetNanos) {
+		if (mFirst < 0) {
+			return;
+		}
+		long start = System.nanoTime();
+		int current = mHost.getCurrentTab();
+		boolean isBeforeCurrent = false;
+		while (mFirst > 0 || mLast < mTabCount - 1) {
+			boolean isLeading = mLast >= mTabCount - 1
+					|| (mFirst > 0 && current - (mFirst - 1) <= mLast + 1 - current);
+			if (isLeading) {
+				mHost.addStagedTab(mFirst - 1, 1);
+				mFirst--;
+				isBeforeCurrent |= mFirst < current;
+			} else {
+				mHost.addStagedTab(mLast + 1, mLast - mFirst + 2);
+				mLast++;
+			}
+			if (budgetNanos >= 0 && System.nanoTime() - start >= budgetNanos) {
+				break;
+			}
+		}
+		if (mFirst == 0 && mLast == mTabCount - 1) {
+			finish();
+		} else {
+			updateSpacers();
+		}
+		if (isBeforeCurrent) {
+			mHost.onLeadingTabsBuilt();
+		}
+	}
+
+	/**
+	 * 按尚未创建的tab数更新首尾占位view：等分模式下权重为tab数，否则宽度为tab数乘以估算宽度
+	 */
+	private void updateSpacers() {
+		setSpacerCount(mLeading, mFirst);
+		setSpacerCount(mTrailing, mTabCount - 1 - mLast);
+	}
+
+	private void setSpacerCount(View spacer, int count) {
+		LinearLayout.LayoutParams params = (LinearLayout.LayoutParams) spacer.getLayoutParams();
+		int width = mTabWidth > 0 ? count * mTabWidth : mIsTabWidthEqual ? 0 : count * mEstimateWidth;
+		float weight = mTabWidth <= 0 && mIsTabWidthEqual ? count : 0;
+		if (params.width != width || params.weight != weight) {
+			params.width = width;
+			params.weight = weight;
+			spacer.setLayoutParams(params);
+		}
+	}
+
+	/**
+	 * 全部创建完成，移除占位view
+	 */
+	private void finish() {
+		cancel();
+		mContainer.removeView(mLeading);
+		mContainer.removeView(mTrailing);
+	}
+
+	/**
+	 * 同步创建剩余的tab，保证容器中的view与tab一一对应
+	 */
+	void complete() {
+		if (mFirst < 0) {
+			return;
+		}
+		buildPending(-1);
+		cancel();
+	}
+
+	/**
+	 * 停止空闲时的创建，容器中的占位view由调用者移除
+	 */
+	void cancel() {
+		if (mIdleHandler != null) {
+			Looper.myQueue().removeIdleHandler(mIdleHandler);
+			mIdleHandler = null;
+		}
+		mFirst = -1;
+		mLast = -1;
+	}
+
+	boolean isBuilding() {
+		return mFirst >= 0;
+	}
+
+	boolean isSpacer(View view) {
+		return view != null && (view == mLeading || view == mTrailing);
+	}
+
+	/**
+	 * 创建中已创建的tab，尚未创建时返回null
+	 */
+	View getTab(int position) {
+		if (position < mFirst || position > mLast) {
+			return null;
+		}
+		return mContainer.getChildAt(position - mFirst + 1);
+	}
+
+	/**
+	 * 创建中容器下标为index的tab的位置
+	 */
+	int getPosition(int index) {
+		return index - 1 + mFirst;
+	}
+
+	/**
+	 * 布局完成后读取位置，尚未创建的tab平分所在占位view的宽度
+	 */
+	void updateGeometry(TabGeometry geometry) {
+		geometry.reset(mTabCount);
+		setSpacerGeometry(geometry, mLeading, 0, mFirst);
+		for (int i = mFirst; i <= mLast; i++) {
+			View tabView = mContainer.getChildAt(i - mFirst + 1);
+			geometry.set(i, tabView.getLeft(), tabView.getWidth());
+		}
+		setSpacerGeometry(geometry, mTrailing, mLast + 1, mTabCount - 1 - mLast);
+	}
+
+	private static void setSpacerGeometry(TabGeometry geometry, View spacer, int positionStart, int count) {
+		int left = spacer.getLeft();
+		int width = spacer.getWidth();
+		for (int i = 0; i < count; i++) {
+			int tabLeft = left + (int) ((long) width * i / count);
+			int tabRight = left + (int) ((long) width * (i + 1) / count);
+			geometry.set(positionStart + i, tabLeft, tabRight - tabLeft);
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package com.lyshixd.tablayout;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import com.lyshixd.tabview.TabItemView;
+
+/**
+ *@Description: tab容器，算出固定宽度、等分和包裹内容三种tab宽度，替代带权重的LinearLayout(权重子view会被测量两次)。
+ * 等分的tab先累计权重，分配剩余宽度后只按最终宽度测量一次。
+ * 子view使用LinearLayout.LayoutParams，支持width、height、weight、margin和竖直方向的gravity；
+ * 与水平LinearLayout一样忽略子view gravity的水平部分，容器自身的gravity决定整体的水平对齐和默认的竖直对齐
+ */
+public class TabContainer extends LinearLayout implements TabItemView.SizeOwner {
+
+	//最后一次测量时宽度是否确定，确定时等分tab的宽度与内容无关
+	private boolean mIsWidthExact;
+	//最后一次测量时高度是否确定
+	private boolean mIsHeightExact;
+	//LinearLayout没有公开gravity的读取，设置时保存一份
+	private int mGravity = Gravity.START | Gravity.TOP;
+
+	public TabContainer(Context context) {
+		super(context);
+		setOrientation(HORIZONTAL);
+	}
+
+	@Override
+	public void setGravity(int gravity) {
+		if ((gravity & Gravity.RELATIVE_HORIZONTAL_GRAVITY_MASK) == 0) {
+			gravity |= Gravity.START;
+		}
+		if ((gravity & Gravity.VERTICAL_GRAVITY_MASK) == 0) {
+			gravity |= Gravity.TOP;
+		}
+		mGravity = gravity;
+		super.setGravity(gravity);
+	}
+
+	/**
+	 * 子view的尺寸是否与内容无关：容器高度确定，子view是指定的像素宽度、不按权重分配，且高度不是包裹内容
+	 */
+	@Override
+	public boolean isSizeFixed(View child) {
+		ViewGroup.LayoutParams params = child.getLayoutParams();
+		if (!mIsHeightExact || !(params instanceof LayoutParams)) {
+			return false;
+		}
+		LayoutParams lp = (LayoutParams) params;
+		return lp.weight == 0 && lp.width >= 0 && lp.height != LayoutParams.WRAP_CONTENT;
+	}
+
+	@Override
+	protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+		return p instanceof LayoutParams;
+	}
+
+	@Override
+	protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+		if (p instanceof LayoutParams) {
+			return new LayoutParams((LayoutParams) p);
+		}
+		if (p instanceof MarginLayoutParams) {
+			return new LayoutParams((MarginLayoutParams) p);
+		}
+		return new LayoutParams(p);
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int count = getChildCount();
+		mIsWidthExact = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY;
+		mIsHeightExact = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY;
+		int horizontalPadding = getPaddingLeft() + getPaddingRight();
+		int verticalPadding = getPaddingTop() + getPaddingBottom();
+
+		//固定宽度和包裹内容的tab直接测量，等分的tab只累计权重
+		int usedWidth = horizontalPadding;
+		int maxHeight = 0;
+		float totalWeight = 0;
+		for (int i = 0; i < count; i++) {
+			View child = getChildAt(i);
+			if (child.getVisibility() == GONE) {
+				continue;
+			}
+			LayoutParams lp = (LayoutParams) child.getLayoutParams();
+			int margins = lp.leftMargin + lp.rightMargin;
+			usedWidth += margins;
+			if (lp.weight > 0 && mIsWidthExact) {
+				totalWeight += lp.weight;
+				usedWidth += Math.max(0, lp.width);
+				continue;
+			}
+			//宽度不确定时等分的tab按内容测量
+			int width = lp.weight > 0 && lp.width == 0 ? LayoutParams.WRAP_CONTENT : lp.width;
+			child.measure(getChildMeasureSpec(widthMeasureSpec, horizontalPadding + margins, width),
+					getChildMeasureSpec(heightMeasureSpec, verticalPadding + lp.topMargin + lp.bottomMargin, lp.height));
+			usedWidth += child.getMeasuredWidth();
+			maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+		}
+
+		//剩余宽度按权重分给等分的tab，余数依次分配，保证总宽度不变
+		if (totalWeight > 0) {
+			int remainingWidth = Math.max(0, MeasureSpec.getSize(widthMeasureSpec) - usedWidth);
+			float remainingWeight = totalWeight;
+			for (int i = 0; i < count; i++) {
+				View child = getChildAt(i);
+				LayoutParams lp = (LayoutParams) child.getLayoutParams();
+				if (child.getVisibility() == GONE || lp.weight <= 0) {
+					continue;
+				}
+				int share = (int) (remainingWidth * lp.weight / remainingWeight);
+				remainingWidth -= share;
+				remainingWeight -= lp.weight;
+				int width = Math.max(0, lp.width) + share;
+				child.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+						getChildMeasureSpec(heightMeasureSpec, verticalPadding + lp.topMargin + lp.bottomMargin, lp.height));
+				usedWidth += width;
+				maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+			}
+		}
+
+		int width = Math.max(usedWidth, getSuggestedMinimumWidth());
+		int height = Math.max(maxHeight + verticalPadding, getSuggestedMinimumHeight());
+		setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+
+		//高度不确定时，撑满高度的tab按最终高度再测一次
+		if (!mIsHeightExact) {
+			int contentHeight = getMeasuredHeight() - verticalPadding;
+			for (int i = 0; i < count; i++) {
+				View child = getChildAt(i);
+				LayoutParams lp = (LayoutParams) child.getLayoutParams();
+				if (child.getVisibility() == GONE || lp.height != LayoutParams.MATCH_PARENT) {
+					continue;
+				}
+				child.measure(MeasureSpec.makeMeasureSpec(child.getMeasuredWidth(), MeasureSpec.EXACTLY),
+						MeasureSpec.makeMeasureSpec(Math.max(0, contentHeight - lp.topMargin - lp.bottomMargin), MeasureSpec.EXACTLY));
+			}
+		}
+	}
+
+	/**
+	 * 按容器的水平gravity整体对齐，子view没有指定gravity时按容器的竖直gravity对齐
+	 */
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		int height = b - t;
+		int count = getChildCount();
+		int contentWidth = 0;
+		for (int i = 0; i < count; i++) {
+			View child = getChildAt(i);
+			if (child.getVisibility() != GONE) {
+				LayoutParams lp = (LayoutParams) child.getLayoutParams();
+				contentWidth += lp.leftMargin + child.getMeasuredWidth() + lp.rightMargin;
+			}
+		}
+		int layoutDirection = getLayoutDirection();
+		int space = r - l - getPaddingLeft() - getPaddingRight() - contentWidth;
+		int left = getPaddingLeft();
+		switch (Gravity.getAbsoluteGravity(mGravity, layoutDirection) & Gravity.HORIZONTAL_GRAVITY_MASK) {
+			case Gravity.CENTER_HORIZONTAL:
+				left += space / 2;
+				break;
+			case Gravity.RIGHT:
+				left += space;
+				break;
+			default:
+				break;
+		}
+
+		boolean isRtl = layoutDirection == LAYOUT_DIRECTION_RTL;
+		int x = isRtl ? left + contentWidth : left;
+		for (int i = 0; i < count; i++) {
+			View child = getChildAt(i);
+			if (child.getVisibility() == GONE) {
+				continue;
+			}
+			LayoutParams lp = (LayoutParams) child.getLayoutParams();
+			int childWidth = child.getMeasuredWidth();
+			int childHeight = child.getMeasuredHeight();
+			int gravity = lp.gravity < 0 ? mGravity : lp.gravity;
+			int top;
+			switch (gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+				case Gravity.CENTER_VERTICAL:
+					top = getPaddingTop() + (height - getPaddingTop() - getPaddingBottom() - childHeight) / 2
+							+ lp.topMargin - lp.bottomMargin;
+					break;
+				case Gravity.BOTTOM:
+					top = height - getPaddingBottom() - childHeight - lp.bottomMargin;
+					break;
+				default:
+					top = getPaddingTop() + lp.topMargin;
+					break;
+			}
+			if (isRtl) {
+				x -= lp.rightMargin + childWidth;
+				child.layout(x, top, x + childWidth, top + childHeight);
+				x -= lp.leftMargin;
+			} else {
+				x += lp.leftMargin;
+				child.layout(x, top, x + childWidth, top + childHeight);
+				x += childWidth + lp.rightMargin;
+			}
+		}
+	}
+}
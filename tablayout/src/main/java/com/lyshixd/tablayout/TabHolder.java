@@ -0,0 +1,72 @@
+package com.lyshixd.tablayout;
+
+import android.util.SparseArray;
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ *@Description: tab view的holder，在tab view第一次绑定时创建并保存在view上，随view一起复用。
+ * 缓存标题TextView、标题宽度和当前样式，自定义tab布局中的其他子view(图标、角标等)通过getView获取并缓存
+ */
+public class TabHolder {
+
+	private final View mItemView;
+	private final TextView mTitleView;
+	//自定义布局中其他子view的缓存
+	private SparseArray<View> mViews;
+
+	//按选中字号测量的标题宽度
+	float mTitleWidth;
+	//最后一次设置的样式是否为选中样式
+	boolean mIsSelected;
+	//滑动过程中样式被改为中间状态，需要重新设置
+	boolean mIsStyleDirty;
+
+	private TabHolder(View itemView) {
+		this.mItemView = itemView;
+		this.mTitleView = itemView.findViewById(R.id.tv_tab_title);
+	}
+
+	/**
+	 * 获取tab view的holder，没有时创建
+	 */
+	static TabHolder of(View itemView) {
+		Object holder = itemView.getTag(R.id.sl_tab_holder);
+		if (holder instanceof TabHolder) {
+			return (TabHolder) holder;
+		}
+		TabHolder tabHolder = new TabHolder(itemView);
+		itemView.setTag(R.id.sl_tab_holder, tabHolder);
+		return tabHolder;
+	}
+
+	public View getItemView() {
+		return mItemView;
+	}
+
+	/**
+	 * 标题，布局中id为tv_tab_title的TextView
+	 */
+	public TextView getTitleView() {
+		return mTitleView;
+	}
+
+	/**
+	 * 获取自定义布局中的子view，只在第一次获取时查找
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends View> T getView(int id) {
+		if (id == R.id.tv_tab_title) {
+			return (T) mTitleView;
+		}
+		if (mViews == null) {
+			mViews = new SparseArray<>();
+		}
+		View view = mViews.get(id);
+		if (view == null) {
+			view = mItemView.findViewById(id);
+			mViews.put(id, view);
+		}
+		return (T) view;
+	}
+}
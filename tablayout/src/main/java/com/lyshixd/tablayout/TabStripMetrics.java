@@ -0,0 +1,246 @@
+package com.lyshixd.tablayout;
+
+import android.os.Trace;
+
+/**
+ *@Description: SlidingTabLayout热点路径的耗时统计。
+ * 开启后每个统计项同时输出android.os.Trace区段，并按耗时累计到直方图，通过OnMetricsListener取出。
+ * 同时统计requestLayout、invalidate、scrollTo的次数，数据更新期间的次数单独统计，不计入每帧的次数。
+ * 可以设置每帧的次数上限，超出时只在报告统计时输出警告，由测试根据getBudgetViolation()判断是否失败。
+ * 只能在主线程使用
+ */
+public class TabStripMetrics {
+
+	public static final int ON_PAGE_SCROLLED = 0;
+	public static final int ON_DRAW = 1;
+	public static final int CALC_INDICATOR_RECT = 2;
+	public static final int SCROLL_TO_CURRENT_TAB = 3;
+	public static final int MEASURE = 4;
+	public static final int LAYOUT = 5;
+	public static final int NOTIFY_DATA_SET_CHANGED = 6;
+	public static final int UPDATE_TAB_SELECTION = 7;
+	public static final int SECTION_COUNT = 8;
+
+	private static final String[] SECTION_NAMES = {
+			"SlidingTab#onPageScrolled",
+			"SlidingTab#onDraw",
+			"SlidingTab#calcIndicatorRect",
+			"SlidingTab#scrollToCurrentTab",
+			"SlidingTab#measure",
+			"SlidingTab#layout",
+			"SlidingTab#notifyDataSetChanged",
+			"SlidingTab#updateTabSelection"
+	};
+
+	public static final int COUNTER_REQUEST_LAYOUT = 0;
+	public static final int COUNTER_INVALIDATE = 1;
+	public static final int COUNTER_SCROLL_TO = 2;
+	public static final int COUNTER_COUNT = 3;
+
+	private static final String[] COUNTER_NAMES = {
+			"SlidingTab#requestLayout",
+			"SlidingTab#invalidate",
+			"SlidingTab#scrollTo"
+	};
+
+	private final Histogram[] mHistograms = new Histogram[SECTION_COUNT];
+	private final long[] mCounters = new long[COUNTER_COUNT];
+	//数据更新期间的次数
+	private final long[] mUpdateCounters = new long[COUNTER_COUNT];
+	//大于0时处于数据更新中
+	private int mUpdateDepth;
+	//每帧次数上限，小于0时不限制
+	private final float[] mBudgets = {-1, -1, -1};
+
+	TabStripMetrics() {
+		for (int i = 0; i < SECTION_COUNT; i++) {
+			mHistograms[i] = new Histogram();
+		}
+	}
+
+	/**
+	 * 开始统计，返回开始时间
+	 */
+	long begin(int section) {
+		Trace.beginSection(SECTION_NAMES[section]);
+		return System.nanoTime();
+	}
+
+	/**
+	 * 结束统计，需要与begin成对调用
+	 */
+	void end(int section, long startNanos) {
+		mHistograms[section].record(System.nanoTime() - startNanos);
+		Trace.endSection();
+	}
+
+	void count(int counter) {
+		if (mUpdateDepth > 0) {
+			mUpdateCounters[counter]++;
+		} else {
+			mCounters[counter]++;
+		}
+	}
+
+	/**
+	 * 开始数据更新，之后的次数计入数据更新，需要与endUpdate成对调用
+	 */
+	void beginUpdate() {
+		mUpdateDepth++;
+	}
+
+	void endUpdate() {
+		if (mUpdateDepth > 0) {
+			mUpdateDepth--;
+		}
+	}
+
+	public static String getSectionName(int section) {
+		return SECTION_NAMES[section];
+	}
+
+	public Histogram getHistogram(int section) {
+		return mHistograms[section];
+	}
+
+	public static String getCounterName(int counter) {
+		return COUNTER_NAMES[counter];
+	}
+
+	/**
+	 * 数据更新以外的次数
+	 */
+	public long getCount(int counter) {
+		return mCounters[counter];
+	}
+
+	/**
+	 * 数据更新(notifyDataSetChanged、setTitles、局部更新、标题加载等)期间的次数
+	 */
+	public long getUpdateCount(int counter) {
+		return mUpdateCounters[counter];
+	}
+
+	/**
+	 * 滑动帧数，即统计期间onPageScrolled的次数
+	 */
+	public long getFrameCount() {
+		return mHistograms[ON_PAGE_SCROLLED].getCount();
+	}
+
+	/**
+	 * 平均每帧的次数
+	 */
+	public float getCountPerFrame(int counter) {
+		long frames = getFrameCount();
+		return frames == 0 ? 0 : (float) mCounters[counter] / frames;
+	}
+
+	/**
+	 * 设置每帧的次数上限，例如滑动时requestLayout应为0，小于0时不限制
+	 */
+	public void setBudget(int counter, float maxPerFrame) {
+		mBudgets[counter] = maxPerFrame;
+	}
+
+	/**
+	 * 检查是否超出设置的上限，返回第一个超出项的说明，没有超出时返回null。
+	 * 运行时只用于输出警告，测试中据此判断是否发生性能退化
+	 */
+	public String getBudgetViolation() {
+		for (int i = 0; i < COUNTER_COUNT; i++) {
+			if (mBudgets[i] >= 0 && getCountPerFrame(i) > mBudgets[i]) {
+				return COUNTER_NAMES[i] + " per frame " + getCountPerFrame(i) + " exceeds budget " + mBudgets[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 清空所有统计
+	 */
+	public void reset() {
+		for (Histogram histogram : mHistograms) {
+			histogram.reset();
+		}
+		for (int i = 0; i < COUNTER_COUNT; i++) {
+			mCounters[i] = 0;
+			mUpdateCounters[i] = 0;
+		}
+	}
+
+	/**
+	 * 耗时直方图，第i个桶统计耗时在[2^(i-1), 2^i)微秒之间的次数，第0个桶为1微秒以内
+	 */
+	public static class Histogram {
+
+		public static final int BUCKET_COUNT = 24;
+
+		private final long[] mBuckets = new long[BUCKET_COUNT];
+		private long mCount;
+		private long mTotalNanos;
+		private long mMaxNanos;
+
+		void record(long nanos) {
+			long micros = nanos / 1000;
+			int bucket = micros <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+			mBuckets[Math.min(bucket, BUCKET_COUNT - 1)]++;
+			mCount++;
+			mTotalNanos += nanos;
+			if (nanos > mMaxNanos) {
+				mMaxNanos = nanos;
+			}
+		}
+
+		void reset() {
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				mBuckets[i] = 0;
+			}
+			mCount = 0;
+			mTotalNanos = 0;
+			mMaxNanos = 0;
+		}
+
+		public long getCount() {
+			return mCount;
+		}
+
+		public long getTotalNanos() {
+			return mTotalNanos;
+		}
+
+		public long getMaxNanos() {
+			return mMaxNanos;
+		}
+
+		public long getBucketCount(int bucket) {
+			return mBuckets[bucket];
+		}
+
+		/**
+		 * 第bucket个桶的耗时上限(不含)，单位微秒
+		 */
+		public static long getBucketUpperBoundMicros(int bucket) {
+			return 1L << bucket;
+		}
+
+		/**
+		 * 按桶估算的百分位耗时上限，单位微秒
+		 * @param percentile 0到1之间
+		 */
+		public long getPercentileMicros(float percentile) {
+			if (mCount == 0) {
+				return 0;
+			}
+			long target = (long) Math.ceil(mCount * percentile);
+			long seen = 0;
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				seen += mBuckets[i];
+				if (seen >= target) {
+					return getBucketUpperBoundMicros(i);
+				}
+			}
+			return getBucketUpperBoundMicros(BUCKET_COUNT - 1);
+		}
+	}
+}
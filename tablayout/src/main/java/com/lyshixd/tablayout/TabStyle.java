@@ -0,0 +1,507 @@
+package com.lyshixd.tablayout;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.ViewGroup;
+
+import com.lyshixd.tabcore.TransitionCurve;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ *@Description: SlidingTabLayout的样式，创建后不可修改。
+ * 布局中的属性按(主题, 配置, 属性集)解析一次后缓存，多个实例(如列表项、每页都有tab的ViewPager)直接复用；
+ * 代码创建时通过Builder生成
+ */
+public final class TabStyle {
+
+	private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
+
+	//主题回收后对应的缓存一起回收，只在主线程使用
+	private static final WeakHashMap<Resources.Theme, HashMap<StyleKey, TabStyle>> sCache = new WeakHashMap<>();
+	//查找缓存时复用的key，命中时不分配
+	private static final StyleKey sLookupKey = new StyleKey();
+
+	final float mTabWidth;
+	final boolean mIsTabWidthEqual;
+	final float mTabPadding;
+
+	final int mTextSizeType;
+	final float mTextSelectSize;
+	final float mTextUnSelectSize;
+	final int mTextSelectColor;
+	final int mTextUnSelectColor;
+	final int mTextBold;
+	final int mTransitionColorSpace;
+
+	final float mIndicatorWidth;
+	final float mIndicatorHeight;
+	final float mIndicatorCornerRadius;
+	final float mIndicatorMarginLeft;
+	final float mIndicatorMarginTop;
+	final float mIndicatorMarginRight;
+	final float mIndicatorMarginBottom;
+	final boolean mIsIndicatorWidthEqualTitle;
+	final int mIndicatorColor;
+	final int mIndicatorStartColor;
+	final int mIndicatorCenterColor;
+	final int mIndicatorEndColor;
+	final int mIndicatorGravity;
+
+	final boolean mIsVirtualized;
+	final boolean mIsTextScaleMode;
+	final boolean mIsCanvasMode;
+	final boolean mIsFrameCoalesced;
+	final boolean mIsFrameExtrapolated;
+	final boolean mIsFarJumpAnimated;
+	final boolean mIsViewPagerSmoothScroll;
+	final boolean mIsStagedTabs;
+
+	final int mHeight;
+
+	private TabStyle(Builder builder) {
+		mTabWidth = builder.mTabWidth;
+		mIsTabWidthEqual = builder.mIsTabWidthEqual;
+		mTabPadding = builder.mHasTabPadding ? builder.mTabPadding :
+				mIsTabWidthEqual || mTabWidth > 0 ? builder.dp2px(0) : builder.dp2px(10);
+		mTextSizeType = builder.mTextSizeType;
+		mTextSelectSize = builder.mTextSelectSize;
+		mTextUnSelectSize = builder.mTextUnSelectSize;
+		mTextSelectColor = builder.mTextSelectColor;
+		mTextUnSelectColor = builder.mTextUnSelectColor;
+		mTextBold = builder.mTextBold;
+		mTransitionColorSpace = builder.mTransitionColorSpace;
+		mIndicatorWidth = builder.mIndicatorWidth;
+		mIndicatorHeight = builder.mIndicatorHeight;
+		mIndicatorCornerRadius = builder.mIndicatorCornerRadius;
+		mIndicatorMarginLeft = builder.mIndicatorMarginLeft;
+		mIndicatorMarginTop = builder.mIndicatorMarginTop;
+		mIndicatorMarginRight = builder.mIndicatorMarginRight;
+		mIndicatorMarginBottom = builder.mIndicatorMarginBottom;
+		mIsIndicatorWidthEqualTitle = builder.mHasIndicatorWidthEqualTitle ? builder.mIsIndicatorWidthEqualTitle :
+				!(mIndicatorWidth > 0);
+		mIndicatorColor = builder.mIndicatorColor;
+		mIndicatorStartColor = builder.mIndicatorStartColor;
+		mIndicatorCenterColor = builder.mIndicatorCenterColor;
+		mIndicatorEndColor = builder.mIndicatorEndColor;
+		mIndicatorGravity = builder.mIndicatorGravity;
+		mIsVirtualized = builder.mIsVirtualized;
+		mIsTextScaleMode = builder.mIsTextScaleMode;
+		mIsCanvasMode = builder.mIsCanvasMode;
+		mIsFrameCoalesced = builder.mIsFrameCoalesced;
+		mIsFrameExtrapolated = builder.mIsFrameExtrapolated;
+		mIsFarJumpAnimated = builder.mIsFarJumpAnimated;
+		mIsViewPagerSmoothScroll = builder.mIsViewPagerSmoothScroll;
+		mIsStagedTabs = builder.mIsStagedTabs;
+		mHeight = builder.mHeight;
+	}
+
+	/**
+	 * 取布局属性对应的样式，相同主题、配置和属性的结果只解析一次
+	 */
+	public static TabStyle obtain(Context context, AttributeSet attrs) {
+		if (attrs == null) {
+			return new Builder(context).build();
+		}
+		Resources.Theme theme = context.getTheme();
+		HashMap<StyleKey, TabStyle> styles = sCache.get(theme);
+		if (styles == null) {
+			styles = new HashMap<>();
+			sCache.put(theme, styles);
+		}
+		sLookupKey.set(context.getResources().getConfiguration(), attrs);
+		TabStyle style = styles.get(sLookupKey);
+		if (style == null) {
+			style = parse(context, attrs);
+			styles.put(sLookupKey.copy(), style);
+		}
+		sLookupKey.clear();
+		return style;
+	}
+
+	private static TabStyle parse(Context context, AttributeSet attrs) {
+		Builder builder = new Builder(context);
+		TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.SlidingTabLayout);
+
+		builder.setTabWidth(ta.getDimension(R.styleable.SlidingTabLayout_sl_tab_width, builder.dp2px(-1)));
+		builder.setTabWidthEqual(ta.getBoolean(R.styleable.SlidingTabLayout_sl_tab_width_equal, false));
+		if (ta.hasValue(R.styleable.SlidingTabLayout_sl_tab_padding)) {
+			builder.setTabPadding(ta.getDimension(R.styleable.SlidingTabLayout_sl_tab_padding, 0));
+		}
+
+		builder.setTextBold(ta.getInt(R.styleable.SlidingTabLayout_sl_text_bold, SlidingTabLayout.TEXT_BOLD_NONE));
+		builder.setTextSelectSize(ta.getInt(R.styleable.SlidingTabLayout_sl_text_select_size, 16));
+		builder.setTextUnSelectSize(ta.getInt(R.styleable.SlidingTabLayout_sl_text_unselect_size, 12));
+		builder.setTextSelectColor(ta.getColor(R.styleable.SlidingTabLayout_sl_text_select_color, Color.BLACK));
+		builder.setTextUnSelectColor(ta.getColor(R.styleable.SlidingTabLayout_sl_text_unselect_color, Builder.DEFAULT_UNSELECT_COLOR));
+		builder.setTransitionColorSpace(ta.getInt(R.styleable.SlidingTabLayout_sl_transition_color_space, TransitionCurve.COLOR_SPACE_SRGB));
+
+		builder.setIndicatorWidth(ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_width, -1));
+		builder.setIndicatorHeight(ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_height, 0));
+		builder.setIndicatorCornerRadius(ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_radius, 0));
+		builder.setIndicatorMargin(ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_left, 0),
+				ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_top, 0),
+				ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_right, 0),
+				ta.getDimension(R.styleable.SlidingTabLayout_sl_indicator_margin_bottom, 0));
+		if (ta.hasValue(R.styleable.SlidingTabLayout_sl_indicator_width_equal_tisle)) {
+			builder.setIndicatorWidthEqualTitle(ta.getBoolean(R.styleable.SlidingTabLayout_sl_indicator_width_equal_tisle, false));
+		}
+
+		builder.setIndicatorColor(ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_color, Color.BLACK));
+		builder.setIndicatorGradientColors(ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_start_color, 0),
+				ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_center_color, 0),
+				ta.getColor(R.styleable.SlidingTabLayout_sl_indicator_end_color, 0));
+
+		builder.setIndicatorGravity(ta.getInt(R.styleable.SlidingTabLayout_sl_indicator_gravity, 1) == 0 ? Gravity.TOP : Gravity.BOTTOM);
+
+		builder.setTextSizeType(ta.getInt(R.styleable.SlidingTabLayout_sl_text_size_type, TypedValue.COMPLEX_UNIT_DIP));
+
+		builder.setVirtualized(ta.getBoolean(R.styleable.SlidingTabLayout_sl_tab_virtualized, false));
+		builder.setTextScaleMode(ta.getBoolean(R.styleable.SlidingTabLayout_sl_text_scale_mode, false));
+		builder.setCanvasMode(ta.getBoolean(R.styleable.SlidingTabLayout_sl_tab_canvas, false));
+		builder.setFrameCoalesced(ta.getBoolean(R.styleable.SlidingTabLayout_sl_frame_coalesced, false));
+		builder.setFrameExtrapolated(ta.getBoolean(R.styleable.SlidingTabLayout_sl_frame_extrapolated, false));
+		builder.setFarJumpAnimated(ta.getBoolean(R.styleable.SlidingTabLayout_sl_far_jump_animated, false));
+		builder.setViewPagerSmoothScroll(ta.getBoolean(R.styleable.SlidingTabLayout_sl_viewpager_smooth_scroll, false));
+		builder.setStagedTabs(ta.getBoolean(R.styleable.SlidingTabLayout_sl_tab_staged, false));
+
+		ta.recycle();
+
+		//获取布局设置的高度
+		String height = attrs.getAttributeValue(ANDROID_NAMESPACE, "layout_height");
+		//如果view高度是确定值
+		if (height != null && !height.equals(ViewGroup.LayoutParams.MATCH_PARENT + "")
+				&& !height.equals(ViewGroup.LayoutParams.WRAP_CONTENT + "")) {
+			int[] systemAttrs = {android.R.attr.height};
+			TypedArray typedArray = context.obtainStyledAttributes(attrs, systemAttrs);
+			builder.setHeight(typedArray.getDimensionPixelSize(0, ViewGroup.LayoutParams.WRAP_CONTENT));
+			typedArray.recycle();
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 代码创建时使用，未设置的项与布局中不写对应属性时相同。尺寸单位为px
+	 */
+	public static class Builder {
+
+		static final int DEFAULT_UNSELECT_COLOR = 0xFF888888;
+
+		private final float mDensity;
+
+		private float mTabWidth;
+		private boolean mIsTabWidthEqual = false;
+		private float mTabPadding;
+		private boolean mHasTabPadding;
+
+		private int mTextSizeType = TypedValue.COMPLEX_UNIT_DIP;
+		private float mTextSelectSize = 16;
+		private float mTextUnSelectSize = 12;
+		private int mTextSelectColor = Color.BLACK;
+		private int mTextUnSelectColor = DEFAULT_UNSELECT_COLOR;
+		private int mTextBold = SlidingTabLayout.TEXT_BOLD_NONE;
+		private int mTransitionColorSpace = TransitionCurve.COLOR_SPACE_SRGB;
+
+		private float mIndicatorWidth = -1;
+		private float mIndicatorHeight;
+		private float mIndicatorCornerRadius;
+		private float mIndicatorMarginLeft;
+		private float mIndicatorMarginTop;
+		private float mIndicatorMarginRight;
+		private float mIndicatorMarginBottom;
+		private boolean mIsIndicatorWidthEqualTitle;
+		private boolean mHasIndicatorWidthEqualTitle;
+		private int mIndicatorColor = Color.BLACK;
+		private int mIndicatorStartColor;
+		private int mIndicatorCenterColor;
+		private int mIndicatorEndColor;
+		private int mIndicatorGravity = Gravity.BOTTOM;
+
+		private boolean mIsVirtualized;
+		private boolean mIsTextScaleMode;
+		private boolean mIsCanvasMode;
+		private boolean mIsFrameCoalesced;
+		private boolean mIsFrameExtrapolated;
+		private boolean mIsFarJumpAnimated;
+		private boolean mIsViewPagerSmoothScroll;
+		private boolean mIsStagedTabs;
+
+		private int mHeight;
+
+		public Builder(Context context) {
+			mDensity = context.getResources().getDisplayMetrics().density;
+			mTabWidth = dp2px(-1);
+		}
+
+		int dp2px(float dp) {
+			return (int) (dp * mDensity + 0.5f);
+		}
+
+		public Builder setTabWidth(float tabWidth) {
+			this.mTabWidth = tabWidth;
+			return this;
+		}
+
+		public Builder setTabWidthEqual(boolean tabWidthEqual) {
+			this.mIsTabWidthEqual = tabWidthEqual;
+			return this;
+		}
+
+		/**
+		 * 不设置时，固定宽度或等分宽度为0，否则为10dp
+		 */
+		public Builder setTabPadding(float tabPadding) {
+			this.mTabPadding = tabPadding;
+			this.mHasTabPadding = true;
+			return this;
+		}
+
+		/**
+		 * @param textSizeType TypedValue.COMPLEX_UNIT_DIP或COMPLEX_UNIT_PX
+		 */
+		public Builder setTextSizeType(int textSizeType) {
+			this.mTextSizeType = textSizeType;
+			return this;
+		}
+
+		public Builder setTextSelectSize(float textSelectSize) {
+			this.mTextSelectSize = textSelectSize;
+			return this;
+		}
+
+		public Builder setTextUnSelectSize(float textUnSelectSize) {
+			this.mTextUnSelectSize = textUnSelectSize;
+			return this;
+		}
+
+		public Builder setTextSelectColor(int textSelectColor) {
+			this.mTextSelectColor = textSelectColor;
+			return this;
+		}
+
+		public Builder setTextUnSelectColor(int textUnSelectColor) {
+			this.mTextUnSelectColor = textUnSelectColor;
+			return this;
+		}
+
+		/**
+		 * @param textBold TEXT_BOLD_SELCET, TEXT_BOLD_BOTH或TEXT_BOLD_NONE
+		 */
+		public Builder setTextBold(int textBold) {
+			this.mTextBold = textBold;
+			return this;
+		}
+
+		/**
+		 * @param colorSpace TransitionCurve.COLOR_SPACE_SRGB(默认)或COLOR_SPACE_OKLAB
+		 */
+		public Builder setTransitionColorSpace(int colorSpace) {
+			this.mTransitionColorSpace = colorSpace;
+			return this;
+		}
+
+		public Builder setIndicatorWidth(float indicatorWidth) {
+			this.mIndicatorWidth = indicatorWidth;
+			return this;
+		}
+
+		public Builder setIndicatorHeight(float indicatorHeight) {
+			this.mIndicatorHeight = indicatorHeight;
+			return this;
+		}
+
+		public Builder setIndicatorCornerRadius(float indicatorCornerRadius) {
+			this.mIndicatorCornerRadius = indicatorCornerRadius;
+			return this;
+		}
+
+		public Builder setIndicatorMargin(float left, float top, float right, float bottom) {
+			this.mIndicatorMarginLeft = left;
+			this.mIndicatorMarginTop = top;
+			this.mIndicatorMarginRight = right;
+			this.mIndicatorMarginBottom = bottom;
+			return this;
+		}
+
+		/**
+		 * 不设置时，指示器没有固定宽度则跟随标题宽度
+		 */
+		public Builder setIndicatorWidthEqualTitle(boolean indicatorWidthEqualTitle) {
+			this.mIsIndicatorWidthEqualTitle = indicatorWidthEqualTitle;
+			this.mHasIndicatorWidthEqualTitle = true;
+			return this;
+		}
+
+		public Builder setIndicatorColor(int indicatorColor) {
+			this.mIndicatorColor = indicatorColor;
+			return this;
+		}
+
+		/**
+		 * startColor和endColor都不为0时生效，centerColor为0表示不使用中间色
+		 */
+		public Builder setIndicatorGradientColors(int startColor, int centerColor, int endColor) {
+			this.mIndicatorStartColor = startColor;
+			this.mIndicatorCenterColor = centerColor;
+			this.mIndicatorEndColor = endColor;
+			return this;
+		}
+
+		/**
+		 * @param gravity Gravity.TOP或Gravity.BOTTOM
+		 */
+		public Builder setIndicatorGravity(int gravity) {
+			this.mIndicatorGravity = gravity;
+			return this;
+		}
+
+		public Builder setVirtualized(boolean virtualized) {
+			this.mIsVirtualized = virtualized;
+			return this;
+		}
+
+		public Builder setTextScaleMode(boolean textScaleMode) {
+			this.mIsTextScaleMode = textScaleMode;
+			return this;
+		}
+
+		public Builder setCanvasMode(boolean canvasMode) {
+			this.mIsCanvasMode = canvasMode;
+			return this;
+		}
+
+		public Builder setFrameCoalesced(boolean frameCoalesced) {
+			this.mIsFrameCoalesced = frameCoalesced;
+			return this;
+		}
+
+		public Builder setFrameExtrapolated(boolean frameExtrapolated) {
+			this.mIsFrameExtrapolated = frameExtrapolated;
+			return this;
+		}
+
+		public Builder setFarJumpAnimated(boolean farJumpAnimated) {
+			this.mIsFarJumpAnimated = farJumpAnimated;
+			return this;
+		}
+
+		public Builder setViewPagerSmoothScroll(boolean smoothScroll) {
+			this.mIsViewPagerSmoothScroll = smoothScroll;
+			return this;
+		}
+
+		public Builder setStagedTabs(boolean stagedTabs) {
+			this.mIsStagedTabs = stagedTabs;
+			return this;
+		}
+
+		/**
+		 * tab容器的固定高度，0为不固定
+		 */
+		public Builder setHeight(int height) {
+			this.mHeight = height;
+			return this;
+		}
+
+		/**
+		 * 分批创建不能与虚拟化或绘制模式同时开启
+		 */
+		public TabStyle build() {
+			if (mIsStagedTabs && (mIsVirtualized || mIsCanvasMode)) {
+				throw new IllegalStateException("Staged tabs can not be used with virtualized or canvas mode !");
+			}
+			return new TabStyle(this);
+		}
+	}
+
+	/**
+	 * 样式缓存的key：配置(密度、字体缩放、夜间模式等)、style和每个属性的原始值，只读取属性集本身，不解析资源。
+	 * 配置按equals比较，不依赖hashCode是否冲突
+	 */
+	private static final class StyleKey {
+
+		private Configuration mConfig;
+		private int mStyle;
+		private int mCount;
+		private int[] mNames = new int[0];
+		private String[] mValues = new String[0];
+		private int mHash;
+
+		/**
+		 * 按属性集填充，数组容量不够时才扩容
+		 */
+		void set(Configuration config, AttributeSet attrs) {
+			mConfig = config;
+			mStyle = attrs.getStyleAttribute();
+			mCount = attrs.getAttributeCount();
+			if (mNames.length < mCount) {
+				mNames = new int[mCount];
+				mValues = new String[mCount];
+			}
+			int hash = 31 * config.hashCode() + mStyle;
+			for (int i = 0; i < mCount; i++) {
+				mNames[i] = attrs.getAttributeNameResource(i);
+				mValues[i] = attrs.getAttributeValue(i);
+				hash = 31 * (31 * hash + mNames[i]) + (mValues[i] == null ? 0 : mValues[i].hashCode());
+			}
+			mHash = hash;
+		}
+
+		/**
+		 * 放入缓存的副本，配置复制一份，之后配置对象被修改也不影响
+		 */
+		StyleKey copy() {
+			StyleKey key = new StyleKey();
+			key.mConfig = new Configuration(mConfig);
+			key.mStyle = mStyle;
+			key.mCount = mCount;
+			key.mNames = Arrays.copyOf(mNames, mCount);
+			key.mValues = Arrays.copyOf(mValues, mCount);
+			key.mHash = mHash;
+			return key;
+		}
+
+		/**
+		 * 查找结束后不再持有配置和属性值
+		 */
+		void clear() {
+			mConfig = null;
+			Arrays.fill(mValues, 0, mCount, null);
+			mCount = 0;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof StyleKey)) {
+				return false;
+			}
+			StyleKey other = (StyleKey) o;
+			if (mHash != other.mHash || mStyle != other.mStyle || mCount != other.mCount || !mConfig.equals(other.mConfig)) {
+				return false;
+			}
+			for (int i = 0; i < mCount; i++) {
+				if (mNames[i] != other.mNames[i] || !TextUtils.equals(mValues[i], other.mValues[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return mHash;
+		}
+	}
+}
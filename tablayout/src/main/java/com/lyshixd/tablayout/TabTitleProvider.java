@@ -0,0 +1,13 @@
+package com.lyshixd.tablayout;
+
+/**
+ *@Description: 按页加载标题，用于标题很多、需要从数据库等来源读取的情况
+ */
+public interface TabTitleProvider {
+
+	/**
+	 * 读取从positionStart开始的itemCount个标题，在后台线程调用
+	 * @return 长度为itemCount的标题，加载失败时返回null，之后会重新请求
+	 */
+	CharSequence[] loadTitles(int positionStart, int itemCount);
+}
@@ -0,0 +1,167 @@
+package com.lyshixd.tablayout;
+
+import android.content.Context;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import androidx.core.view.ViewCompat;
+
+import java.util.ArrayList;
+
+/**
+ *@Description: tab view复用池，按tab布局类型缓存已创建的tab view。
+ * 可以在多个SlidingTabLayout之间共享(例如同一个Activity内的多个tab栏)，
+ * 各实例之间以及多次setViewPager()之间都能复用已创建的tab。只能在主线程使用。
+ */
+public class TabViewPool {
+
+	//每种类型默认最多缓存的数量
+	public static final int DEFAULT_MAX_SIZE = 30;
+
+	//按布局id存放的空闲tab view
+	private final SparseArray<ArrayList<View>> mScrapViews = new SparseArray<>();
+	private final int mMaxSizePerType;
+
+	private int mHitCount;
+	private int mMissCount;
+	//池已满被丢弃的数量
+	private int mDropCount;
+
+	public TabViewPool() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSizePerType 每种tab布局最多缓存的view数量
+	 */
+	public TabViewPool(int maxSizePerType) {
+		if (maxSizePerType < 0) {
+			throw new IllegalArgumentException("maxSizePerType can not be negative !");
+		}
+		this.mMaxSizePerType = maxSizePerType;
+	}
+
+	/**
+	 * 取出一个指定布局的tab view，池中没有时创建新的
+	 * @param context 创建新view时使用的context
+	 * @param layoutRes tab布局，同时也是复用的类型
+	 */
+	public View acquire(Context context, int layoutRes) {
+		ArrayList<View> scrap = mScrapViews.get(layoutRes);
+		if (scrap != null && !scrap.isEmpty()) {
+			mHitCount++;
+			return scrap.remove(scrap.size() - 1);
+		}
+		mMissCount++;
+		View tabView = View.inflate(context, layoutRes, null);
+		tabView.setTag(R.id.sl_tab_view_type, layoutRes);
+		return tabView;
+	}
+
+	/**
+	 * 回收tab view，如果还在父布局中会先被移除
+	 * @return 是否被放入池中，池已满时返回false
+	 */
+	public boolean release(View tabView) {
+		Object type = tabView.getTag(R.id.sl_tab_view_type);
+		if (!(type instanceof Integer)) {
+			return false;
+		}
+		if (tabView.getParent() instanceof ViewGroup) {
+			((ViewGroup) tabView.getParent()).removeView(tabView);
+		}
+		int layoutRes = (Integer) type;
+		ArrayList<View> scrap = mScrapViews.get(layoutRes);
+		if (scrap == null) {
+			scrap = new ArrayList<>();
+			mScrapViews.put(layoutRes, scrap);
+		}
+		if (scrap.size() >= mMaxSizePerType) {
+			mDropCount++;
+			return false;
+		}
+		resetTabView(tabView);
+		scrap.add(tabView);
+		return true;
+	}
+
+	/**
+	 * 清除上一个使用者留下的状态，池可能在多个SlidingTabLayout之间共享，复用时不能带着上一个位置的设置
+	 */
+	private static void resetTabView(View tabView) {
+		//setOnClickListener(null)会把view设为可点击，点击由tab栏统一处理，tab自身不能拦截触摸
+		tabView.setOnClickListener(null);
+		tabView.setClickable(false);
+		//代理持有所属的SlidingTabLayout，复用时重新设置
+		ViewCompat.setAccessibilityDelegate(tabView, null);
+		tabView.setScaleX(1f);
+		tabView.setScaleY(1f);
+		tabView.setTranslationX(0f);
+		tabView.setTranslationY(0f);
+		tabView.setAlpha(1f);
+		//布局参数不能置空，恢复为包裹内容，宽度和权重由使用者重新设置
+		ViewGroup.LayoutParams params = tabView.getLayoutParams();
+		if (params instanceof LinearLayout.LayoutParams) {
+			LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) params;
+			lp.width = LinearLayout.LayoutParams.WRAP_CONTENT;
+			lp.height = LinearLayout.LayoutParams.MATCH_PARENT;
+			lp.weight = 0;
+			lp.gravity = -1;
+			lp.setMargins(0, 0, 0, 0);
+		} else if (params != null) {
+			tabView.setLayoutParams(new LinearLayout.LayoutParams(LinearLayout.LayoutParams.WRAP_CONTENT,
+					LinearLayout.LayoutParams.MATCH_PARENT));
+		}
+	}
+
+	/**
+	 * 清空缓存的view，例如在Activity销毁时
+	 */
+	public void clear() {
+		mScrapViews.clear();
+	}
+
+	/**
+	 * 当前缓存的view数量
+	 */
+	public int getSize() {
+		int size = 0;
+		for (int i = 0; i < mScrapViews.size(); i++) {
+			size += mScrapViews.valueAt(i).size();
+		}
+		return size;
+	}
+
+	public int getMaxSizePerType() {
+		return mMaxSizePerType;
+	}
+
+	/**
+	 * 从池中取到可复用view的次数
+	 */
+	public int getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * 池中没有可复用view而新创建的次数
+	 */
+	public int getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * 回收时池已满被丢弃的次数
+	 */
+	public int getDropCount() {
+		return mDropCount;
+	}
+
+	public void resetStats() {
+		mHitCount = 0;
+		mMissCount = 0;
+		mDropCount = 0;
+	}
+}
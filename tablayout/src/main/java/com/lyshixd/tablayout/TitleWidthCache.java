@@ -0,0 +1,150 @@
+package com.lyshixd.tablayout;
+
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *@Description: 标题宽度缓存，按标题、字号、字号单位、字体和是否加粗缓存测量结果。
+ * 测量使用与TextView相同的画笔设置，字体缩放或样式变化时需要调用invalidate()。
+ * 设置了预计算结果时优先使用，预计算的宽度不占用缓存容量
+ */
+class TitleWidthCache {
+
+	private static final int MAX_SIZE = 512;
+
+	private final LinkedHashMap<Key, Float> mWidths = new LinkedHashMap<Key, Float>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Float> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+	//用于查询的key，命中缓存时不产生新对象
+	private final Key mLookupKey = new Key();
+	private final TextPaint mPaint = new TextPaint();
+	//后台预先测量的宽度
+	private PrecomputedTitles mPrecomputed;
+
+	/**
+	 * 测量标题宽度
+	 * @param title 标题
+	 * @param textSize 字号
+	 * @param unit 字号单位，TypedValue.COMPLEX_UNIT_*
+	 * @param basePaint TextView的画笔，提供字体等设置
+	 * @param bold 是否加粗
+	 */
+	float measure(CharSequence title, float textSize, int unit, TextPaint basePaint, boolean bold, DisplayMetrics metrics) {
+		if (title == null || title.length() == 0) {
+			return 0;
+		}
+		Typeface typeface = basePaint.getTypeface();
+		if (mPrecomputed != null) {
+			float precomputed = mPrecomputed.getWidth(title, textSize, unit, typeface, bold);
+			if (precomputed >= 0) {
+				return precomputed;
+			}
+		}
+		mLookupKey.set(title, textSize, unit, typeface, bold);
+		Float width = mWidths.get(mLookupKey);
+		if (width != null) {
+			return width;
+		}
+
+		float measured = measureText(mPaint, basePaint, title, textSize, unit, bold, metrics);
+		put(title, textSize, unit, typeface, bold, measured);
+		return measured;
+	}
+
+	/**
+	 * 设置后台预先测量的宽度，样式变化后由invalidate()清除
+	 */
+	void setPrecomputed(PrecomputedTitles precomputed) {
+		this.mPrecomputed = precomputed;
+	}
+
+	private void put(CharSequence title, float textSize, int unit, Typeface typeface, boolean bold, float width) {
+		Key key = new Key();
+		key.set(title.toString(), textSize, unit, typeface, bold);
+		mWidths.put(key, width);
+	}
+
+	/**
+	 * 用paint按basePaint的设置测量标题宽度，不访问缓存，可以在后台线程使用各自的paint调用
+	 */
+	static float measureText(TextPaint paint, TextPaint basePaint, CharSequence title, float textSize, int unit,
+			boolean bold, DisplayMetrics metrics) {
+		paint.set(basePaint);
+		paint.setTextSize(TypedValue.applyDimension(unit, textSize, metrics));
+		paint.setFakeBoldText(bold);
+		return paint.measureText(title, 0, title.length());
+	}
+
+	/**
+	 * 字体缩放或样式变化后清空缓存
+	 */
+	void invalidate() {
+		mWidths.clear();
+		mPrecomputed = null;
+	}
+
+	private static class Key {
+		CharSequence title;
+		float textSize;
+		int unit;
+		Typeface typeface;
+		boolean bold;
+
+		void set(CharSequence title, float textSize, int unit, Typeface typeface, boolean bold) {
+			this.title = title;
+			this.textSize = textSize;
+			this.unit = unit;
+			this.typeface = typeface;
+			this.bold = bold;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return textSize == key.textSize
+					&& unit == key.unit
+					&& bold == key.bold
+					&& typeface == key.typeface
+					&& contentEquals(title, key.title);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = 0;
+			for (int i = 0; i < title.length(); i++) {
+				result = 31 * result + title.charAt(i);
+			}
+			result = 31 * result + Float.floatToIntBits(textSize);
+			result = 31 * result + unit;
+			result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+			result = 31 * result + (bold ? 1 : 0);
+			return result;
+		}
+
+		private static boolean contentEquals(CharSequence a, CharSequence b) {
+			if (a.length() != b.length()) {
+				return false;
+			}
+			for (int i = 0; i < a.length(); i++) {
+				if (a.charAt(i) != b.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
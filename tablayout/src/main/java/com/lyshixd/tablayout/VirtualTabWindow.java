@@ -0,0 +1,175 @@
+package com.lyshixd.tablayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import com.lyshixd.tabcore.TabGeometry;
+
+/**
+ *@Description: 虚拟化模式下已实例化的tab范围。只把可见范围内(加上两侧少量余量)的tab实例化为view，
+ * 容器中第一个子view是占位view，撑开第一个已实例化tab之前的宽度，位置p的tab在容器中的下标为p - first + 1
+ */
+class VirtualTabWindow {
+
+	/**
+	 * tab view的获取和回收由SlidingTabLayout完成
+	 */
+	interface Host {
+		/**
+		 * 取一个回收的tab(没有则创建)并绑定到指定位置
+		 */
+		View obtainTab(int position);
+
+		void releaseTab(View tabView);
+	}
+
+	//可见范围两侧额外保留的tab数量
+	static final int MARGIN = 2;
+
+	private final ViewGroup mContainer;
+	private final TabGeometry mGeometry;
+	private final Host mHost;
+	private View mLeadingSpace;
+	//当前已实例化的tab范围
+	private int mFirst = -1;
+	private int mLast = -1;
+
+	VirtualTabWindow(ViewGroup container, TabGeometry geometry, Host host) {
+		this.mContainer = container;
+		this.mGeometry = geometry;
+		this.mHost = host;
+	}
+
+	/**
+	 * 把占位view放进已清空的容器，之后才能update
+	 */
+	void attach() {
+		if (mLeadingSpace == null) {
+			mLeadingSpace = new View(mContainer.getContext());
+		}
+		mFirst = -1;
+		mLast = -1;
+		mContainer.addView(mLeadingSpace, new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT));
+	}
+
+	boolean isAttached() {
+		return mLeadingSpace != null && mLeadingSpace.getParent() == mContainer;
+	}
+
+	/**
+	 * 按内容坐标的可见范围更新已实例化的tab，移出范围的tab被回收复用
+	 * @param start 可见范围在内容坐标中的起点
+	 */
+	void update(int start, int viewportWidth, int tabCount) {
+		if (!isAttached() || tabCount <= 0) {
+			return;
+		}
+		int first = Math.max(0, mGeometry.indexAt(start) - MARGIN);
+		int last = Math.min(tabCount - 1, mGeometry.indexAt(start + viewportWidth) + MARGIN);
+		if (first == mFirst && last == mLast) {
+			return;
+		}
+
+		if (mFirst < 0 || last < mFirst || first > mLast) {
+			//新旧范围没有交集，全部回收后重新实例化
+			recycle();
+			for (int i = first; i <= last; i++) {
+				mContainer.addView(mHost.obtainTab(i));
+			}
+		} else {
+			//只回收移出范围的tab，补上新进入范围的tab
+			while (mFirst < first) {
+				recycleAt(1);
+				mFirst++;
+			}
+			while (mLast > last) {
+				recycleAt(mContainer.getChildCount() - 1);
+				mLast--;
+			}
+			while (mFirst > first) {
+				mFirst--;
+				mContainer.addView(mHost.obtainTab(mFirst), 1);
+			}
+			while (mLast < last) {
+				mLast++;
+				mContainer.addView(mHost.obtainTab(mLast));
+			}
+		}
+		mFirst = first;
+		mLast = last;
+		updateLeadingSpace();
+	}
+
+	/**
+	 * 位置表变化后按第一个已实例化tab的新位置调整占位宽度
+	 */
+	void updateLeadingSpace() {
+		if (mFirst < 0) {
+			return;
+		}
+		int width = mGeometry.getLeft(mFirst);
+		ViewGroup.LayoutParams spaceParams = mLeadingSpace.getLayoutParams();
+		if (spaceParams.width != width) {
+			spaceParams.width = width;
+			mLeadingSpace.setLayoutParams(spaceParams);
+		}
+	}
+
+	/**
+	 * 回收所有已实例化的tab，占位view保留
+	 */
+	void recycle() {
+		if (mFirst < 0) {
+			return;
+		}
+		for (int i = mContainer.getChildCount() - 1; i >= 1; i--) {
+			recycleAt(i);
+		}
+		mFirst = -1;
+		mLast = -1;
+	}
+
+	/**
+	 * 容器被清空，已实例化的tab由调用者回收
+	 */
+	void reset() {
+		mFirst = -1;
+		mLast = -1;
+	}
+
+	private void recycleAt(int index) {
+		View tabView = mContainer.getChildAt(index);
+		mContainer.removeViewAt(index);
+		mHost.releaseTab(tabView);
+	}
+
+	int getFirst() {
+		return mFirst;
+	}
+
+	int getLast() {
+		return mLast;
+	}
+
+	boolean isLeadingSpace(View view) {
+		return view != null && view == mLeadingSpace;
+	}
+
+	/**
+	 * 已实例化的tab，不在范围内时返回null
+	 */
+	View getTab(int position) {
+		if (mFirst < 0 || position < mFirst || position > mLast) {
+			return null;
+		}
+		return mContainer.getChildAt(position - mFirst + 1);
+	}
+
+	/**
+	 * 容器中下标为index的tab的位置
+	 */
+	int getPosition(int index) {
+		return mFirst < 0 || index < 1 ? -1 : index - 1 + mFirst;
+	}
+}
@@ -0,0 +1,455 @@
+package com.lyshixd.tablayout;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.viewpager.widget.PagerAdapter;
+import androidx.viewpager.widget.ViewPager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ *@Description: 按ViewPager的回调顺序驱动滑动、点击、跨页跳转和数据更新，检查每帧的requestLayout、测量、invalidate、scrollTo次数和内存分配。
+ * 回调由FakePager逐帧发出，不依赖ViewPager内部的滚动实现。
+ * 例如滑动时每帧setTextSize导致重新布局，或者指示器移动时重绘整个tab栏，这里会失败
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SlidingTabLayoutMetricsTest {
+
+	private static final int TAB_COUNT = 20;
+	private static final int FRAMES_PER_SWIPE = 20;
+	//滑动结束最多等待的帧数
+	private static final int MAX_SETTLE_FRAMES = 200;
+	//每帧允许的分配字节数，小于一个空数组(16字节)，每帧分配任何对象都会超出
+	private static final long ALLOCATION_BUDGET_PER_FRAME = 8;
+
+	private Activity mActivity;
+	private LinearLayout mRoot;
+	private FakePager mViewPager;
+	private SlidingTabLayout mTabLayout;
+	private TabStripMetrics mReported;
+
+	@Before
+	public void setUp() {
+		mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+		mRoot = new LinearLayout(mActivity);
+		mRoot.setOrientation(LinearLayout.VERTICAL);
+		mActivity.setContentView(mRoot);
+	}
+
+	@Test
+	public void swipeInScaleModeDoesNotRelayout() {
+		attach(new TabStyle.Builder(mActivity).setTextScaleMode(true).build(), TAB_COUNT);
+
+		swipeToNextPage();
+
+		assertEquals(1, mViewPager.getCurrentItem());
+		assertNotNull("Metrics are reported when the pager becomes idle", mReported);
+		assertFrameBudgets(mReported);
+	}
+
+	@Test
+	public void swipeWithFixedWidthTabsDoesNotRelayout() {
+		//字号变化时tab尺寸不变，TabItemView不会请求重新布局
+		attach(new TabStyle.Builder(mActivity).setTabWidth(200).build(), TAB_COUNT);
+
+		swipeToNextPage();
+		swipeToNextPage();
+
+		assertEquals(2, mViewPager.getCurrentItem());
+		assertFrameBudgets(mTabLayout.getMetrics());
+	}
+
+	@Test
+	public void indicatorMovesWithoutInvalidatingStrip() {
+		//tab全部可见，tab栏不滚动
+		attach(new TabStyle.Builder(mActivity).setTextScaleMode(true).setTabWidth(60)
+				.setIndicatorWidth(20).setIndicatorHeight(4).build(), 4);
+		View indicator = mTabLayout.getIndicatorView();
+		float startX = indicator.getTranslationX();
+
+		swipeToNextPage();
+
+		assertEquals(20, indicator.getWidth());
+		assertEquals(60, indicator.getTranslationX() - startX, 1);
+		TabStripMetrics metrics = mTabLayout.getMetrics();
+		assertTrue(metrics.getFrameCount() > 0);
+		assertEquals(0, metrics.getCount(TabStripMetrics.COUNTER_INVALIDATE));
+		assertEquals(0, mTabLayout.getScrollX());
+	}
+
+	@Test
+	public void tapAdjacentTabDoesNotRelayout() {
+		attach(new TabStyle.Builder(mActivity).setTextScaleMode(true).build(), TAB_COUNT);
+
+		tap(1);
+		settle();
+
+		assertEquals(1, mViewPager.getCurrentItem());
+		assertFrameBudgets(mTabLayout.getMetrics());
+	}
+
+	@Test
+	public void farJumpDoesNotRelayout() {
+		attach(new TabStyle.Builder(mActivity).setTextScaleMode(true).setFarJumpAnimated(true).build(), TAB_COUNT);
+
+		tap(3);
+		//跳转动画按帧推进到结束
+		frames(30);
+
+		assertEquals(3, mViewPager.getCurrentItem());
+		TabStripMetrics metrics = mTabLayout.getMetrics();
+		assertEquals(0, metrics.getCount(TabStripMetrics.COUNTER_REQUEST_LAYOUT));
+		assertEquals(0, metrics.getHistogram(TabStripMetrics.MEASURE).getCount());
+	}
+
+	@Test
+	public void dataUpdatesAreCountedSeparately() {
+		attach(new TabStyle.Builder(mActivity).build(), TAB_COUNT);
+		String[] titles = createTitles(TAB_COUNT);
+		titles[5] = "Renamed";
+
+		mTabLayout.notifyTabsChanged(0, 2);
+		mTabLayout.setTitles(titles);
+		mTabLayout.setViewPager(mViewPager, createTitles(TAB_COUNT));
+		frames(2);
+
+		TabStripMetrics metrics = mTabLayout.getMetrics();
+		assertTrue(metrics.getUpdateCount(TabStripMetrics.COUNTER_REQUEST_LAYOUT) > 0);
+		assertEquals(0, metrics.getCount(TabStripMetrics.COUNTER_REQUEST_LAYOUT));
+		assertEquals(0, metrics.getFrameCount());
+		assertEquals(0, metrics.getCountPerFrame(TabStripMetrics.COUNTER_INVALIDATE), 0);
+	}
+
+	@Test
+	public void budgetViolationIsReportedWithoutThrowing() {
+		attach(new TabStyle.Builder(mActivity).setTextScaleMode(true).build(), TAB_COUNT);
+		mTabLayout.getMetrics().setBudget(TabStripMetrics.COUNTER_SCROLL_TO, 0);
+
+		swipeToNextPage();
+
+		assertNotNull(mReported);
+		assertNotNull(mReported.getBudgetViolation());
+	}
+
+	@Test
+	public void swipeCallbacksStayWithinAllocationBudget() {
+		//选中和未选中同色，tab的文字颜色不变，不触发tab view自身的重绘，只统计tab栏代码的分配。
+		//Robolectric的View影子在每次invalidate时都会分配代理对象，这部分不是被测代码的分配
+		attach(new TabStyle.Builder(mActivity).setTextScaleMode(true)
+				.setTextSelectColor(Color.BLACK).setTextUnSelectColor(Color.BLACK).build(), TAB_COUNT);
+		com.sun.management.ThreadMXBean threadBean = getThreadBean();
+		long threadId = Thread.currentThread().getId();
+		//预热，类加载和首次绘制的分配不计入
+		int frameCount = swipeBackAndForth(5);
+
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		frameCount = swipeBackAndForth(5);
+		long perFrame = (threadBean.getThreadAllocatedBytes(threadId) - before) / frameCount;
+
+		assertTrue("A swipe frame allocated " + perFrame + " bytes", perFrame <= ALLOCATION_BUDGET_PER_FRAME);
+	}
+
+	@Test
+	public void titleColorTransitionReusesColorStateList() {
+		attach(new TabStyle.Builder(mActivity).setTextScaleMode(true)
+				.setTextSelectColor(Color.RED).setTextUnSelectColor(Color.BLUE).build(), TAB_COUNT);
+		TextView title = (TextView) mTabLayout.getTabView(1);
+
+		mViewPager.drag(0.9f, FRAMES_PER_SWIPE);
+		frames(1);
+		ColorStateList colors = title.getTextColors();
+		int color = title.getCurrentTextColor();
+		frames(FRAMES_PER_SWIPE - 1);
+
+		//颜色每帧都在变化，但ColorStateList仍是同一个对象
+		assertTrue(color != title.getCurrentTextColor());
+		assertSame(colors, title.getTextColors());
+	}
+
+	/**
+	 * 滑动中不应重新布局和测量，每帧最多一次scrollTo和两次invalidate
+	 */
+	private void assertFrameBudgets(TabStripMetrics metrics) {
+		assertTrue(metrics.getFrameCount() > 0);
+		metrics.setBudget(TabStripMetrics.COUNTER_REQUEST_LAYOUT, 0);
+		metrics.setBudget(TabStripMetrics.COUNTER_INVALIDATE, 2);
+		metrics.setBudget(TabStripMetrics.COUNTER_SCROLL_TO, 1);
+		assertNull(metrics.getBudgetViolation());
+		assertEquals(0, metrics.getHistogram(TabStripMetrics.MEASURE).getCount());
+	}
+
+	private void attach(TabStyle style, int tabCount) {
+		mTabLayout = new SlidingTabLayout(mActivity, style);
+		mRoot.addView(mTabLayout, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 120));
+		mViewPager = new FakePager(mActivity);
+		mViewPager.setAdapter(new TitleAdapter(createTitles(tabCount)));
+		mRoot.addView(mViewPager, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 0, 1));
+		mTabLayout.setViewPager(mViewPager);
+		mTabLayout.setMetricsListener(new OnMetricsListener() {
+			@Override
+			public void onMetricsReport(TabStripMetrics metrics) {
+				mReported = metrics;
+			}
+		});
+		frames(2);
+		mTabLayout.getMetrics().reset();
+		mReported = null;
+	}
+
+	private static String[] createTitles(int count) {
+		String[] titles = new String[count];
+		for (int i = 0; i < count; i++) {
+			titles[i] = "Tab " + i;
+		}
+		return titles;
+	}
+
+	/**
+	 * 拖动九成页宽后松手，等待滑动结束
+	 */
+	private void swipeToNextPage() {
+		mViewPager.drag(0.9f, FRAMES_PER_SWIPE);
+		frames(FRAMES_PER_SWIPE);
+		mViewPager.settleTo(mViewPager.getCurrentItem() + 1);
+		settle();
+	}
+
+	/**
+	 * 在tab中心点击，tab的点击事件在下一次消息循环中执行
+	 */
+	private void tap(int position) {
+		View tab = mTabLayout.getTabView(position);
+		float x = mTabLayout.getPaddingLeft() + tab.getLeft() + tab.getWidth() / 2f - mTabLayout.getScrollX();
+		float y = mTabLayout.getHeight() / 2f;
+		long time = SystemClock.uptimeMillis();
+		mTabLayout.dispatchTouchEvent(MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, x, y, 0));
+		mTabLayout.dispatchTouchEvent(MotionEvent.obtain(time, time + 50, MotionEvent.ACTION_UP, x, y, 0));
+		ShadowLooper.idleMainLooper();
+	}
+
+	private void settle() {
+		for (int i = 0; i < MAX_SETTLE_FRAMES && mViewPager.getScrollState() != ViewPager.SCROLL_STATE_IDLE; i++) {
+			frames(1);
+		}
+		assertEquals(ViewPager.SCROLL_STATE_IDLE, mViewPager.getScrollState());
+	}
+
+	/**
+	 * 推进count帧：ViewPager发出这一帧的滑动回调，时钟前进，执行到期的消息和Choreographer回调
+	 */
+	private void frames(int count) {
+		for (int i = 0; i < count; i++) {
+			mViewPager.nextFrame();
+			ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * 在第一页和第二页之间来回拖动count次，不松手，每帧都经过tab栏的滑动回调和帧回调，返回推进的帧数。
+	 * 拖动不超过半页，选中的tab不变
+	 */
+	private int swipeBackAndForth(int count) {
+		for (int i = 0; i < count; i++) {
+			mViewPager.drag(0.45f, FRAMES_PER_SWIPE);
+			frames(FRAMES_PER_SWIPE);
+			mViewPager.drag(-0.45f, FRAMES_PER_SWIPE);
+			frames(FRAMES_PER_SWIPE);
+		}
+		return count * FRAMES_PER_SWIPE * 2;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		return threadBean;
+	}
+
+	/**
+	 * 按ViewPager的顺序逐帧发出回调：拖动时DRAGGING和每帧的onPageScrolled，
+	 * 松手或setCurrentItem平滑滚动时先SETTLING和onPageSelected，再逐帧滚动到目标页后IDLE
+	 */
+	private static class FakePager extends ViewPager {
+
+		private static final int SETTLE_FRAMES = 10;
+
+		private final ArrayList<OnPageChangeListener> mListeners = new ArrayList<>();
+		private int mCurrentItem;
+		private int mScrollState = SCROLL_STATE_IDLE;
+		//以页为单位的滚动位置，以及每帧的变化和剩余帧数
+		private float mPagePosition;
+		private float mFrameDelta;
+		private int mRemainingFrames;
+
+		FakePager(Context context) {
+			super(context);
+		}
+
+		@Override
+		public void addOnPageChangeListener(OnPageChangeListener listener) {
+			super.addOnPageChangeListener(listener);
+			mListeners.add(listener);
+		}
+
+		@Override
+		public void removeOnPageChangeListener(OnPageChangeListener listener) {
+			super.removeOnPageChangeListener(listener);
+			mListeners.remove(listener);
+		}
+
+		@Override
+		public int getCurrentItem() {
+			return mCurrentItem;
+		}
+
+		@Override
+		public void setCurrentItem(int item) {
+			setCurrentItem(item, true);
+		}
+
+		@Override
+		public void setCurrentItem(int item, boolean smoothScroll) {
+			if (smoothScroll) {
+				settleTo(item);
+				return;
+			}
+			mRemainingFrames = 0;
+			selectPage(item);
+			mPagePosition = item;
+			dispatchScrolled();
+		}
+
+		int getScrollState() {
+			return mScrollState;
+		}
+
+		/**
+		 * 在frames帧内拖动distance页，正数向后
+		 */
+		void drag(float distance, int frames) {
+			setScrollState(SCROLL_STATE_DRAGGING);
+			mFrameDelta = distance / frames;
+			mRemainingFrames = frames;
+		}
+
+		/**
+		 * 松手后滚动到item
+		 */
+		void settleTo(int item) {
+			setScrollState(SCROLL_STATE_SETTLING);
+			selectPage(item);
+			mFrameDelta = (item - mPagePosition) / SETTLE_FRAMES;
+			mRemainingFrames = SETTLE_FRAMES;
+		}
+
+		void nextFrame() {
+			if (mRemainingFrames <= 0) {
+				return;
+			}
+			mRemainingFrames--;
+			//与ViewPager一样不会滚出第一页和最后一页
+			mPagePosition = Math.max(0, Math.min(getAdapter().getCount() - 1, mPagePosition + mFrameDelta));
+			if (mRemainingFrames == 0 && mScrollState == SCROLL_STATE_SETTLING) {
+				mPagePosition = mCurrentItem;
+			}
+			dispatchScrolled();
+			if (mRemainingFrames == 0 && mScrollState == SCROLL_STATE_SETTLING) {
+				setScrollState(SCROLL_STATE_IDLE);
+			}
+		}
+
+		private void selectPage(int item) {
+			if (item == mCurrentItem) {
+				return;
+			}
+			mCurrentItem = item;
+			for (int i = 0; i < mListeners.size(); i++) {
+				mListeners.get(i).onPageSelected(item);
+			}
+		}
+
+		private void dispatchScrolled() {
+			int position = (int) Math.floor(mPagePosition);
+			float offset = mPagePosition - position;
+			int offsetPixels = (int) (offset * getWidth());
+			for (int i = 0; i < mListeners.size(); i++) {
+				mListeners.get(i).onPageScrolled(position, offset, offsetPixels);
+			}
+		}
+
+		private void setScrollState(int state) {
+			if (mScrollState == state) {
+				return;
+			}
+			mScrollState = state;
+			for (int i = 0; i < mListeners.size(); i++) {
+				mListeners.get(i).onPageScrollStateChanged(state);
+			}
+		}
+	}
+
+	private static class TitleAdapter extends PagerAdapter {
+
+		private final String[] mTitles;
+
+		TitleAdapter(String[] titles) {
+			this.mTitles = titles;
+		}
+
+		@Override
+		public int getCount() {
+			return mTitles.length;
+		}
+
+		@Override
+		public CharSequence getPageTitle(int position) {
+			return mTitles[position];
+		}
+
+		@Override
+		public Object instantiateItem(ViewGroup container, int position) {
+			View page = new View(container.getContext());
+			container.addView(page);
+			return page;
+		}
+
+		@Override
+		public void destroyItem(ViewGroup container, int position, Object object) {
+			container.removeView((View) object);
+		}
+
+		@Override
+		public boolean isViewFromObject(View view, Object object) {
+			return view == object;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package com.lyshixd.tablayout;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import androidx.viewpager.widget.PagerAdapter;
+import androidx.viewpager.widget.ViewPager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *@Description: 虚拟化、分批创建和绘制模式的tab实例化范围，以及不支持的模式组合在设置时被拒绝
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SlidingTabLayoutModeTest {
+
+	private static final int TAB_COUNT = 100;
+	private static final int TAB_WIDTH = 60;
+
+	private Activity mActivity;
+	private LinearLayout mRoot;
+	private ViewPager mViewPager;
+	private SlidingTabLayout mTabLayout;
+
+	@Before
+	public void setUp() {
+		mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+		mRoot = new LinearLayout(mActivity);
+		mRoot.setOrientation(LinearLayout.VERTICAL);
+		mActivity.setContentView(mRoot);
+	}
+
+	@Test
+	public void virtualizedStripMaterializesOnlyVisibleTabs() {
+		attach(new TabStyle.Builder(mActivity).setTabWidth(TAB_WIDTH).setVirtualized(true).build());
+
+		assertNotNull(mTabLayout.getTabView(0));
+		assertNull(mTabLayout.getTabView(TAB_COUNT - 1));
+		assertEquals(TAB_WIDTH * TAB_COUNT, mTabLayout.getChildAt(0).getMeasuredWidth());
+
+		mTabLayout.scrollTo(TAB_WIDTH * TAB_COUNT, 0);
+		layout();
+
+		assertNull(mTabLayout.getTabView(0));
+		View last = mTabLayout.getTabView(TAB_COUNT - 1);
+		assertNotNull(last);
+		assertEquals(TAB_WIDTH * (TAB_COUNT - 1), last.getLeft());
+		assertEquals("Tab " + (TAB_COUNT - 1), mTabLayout.getTitleView(TAB_COUNT - 1).getText().toString());
+	}
+
+	@Test
+	public void stagedStripCreatesRemainingTabsWhenCompleted() {
+		attach(new TabStyle.Builder(mActivity).setTabWidth(TAB_WIDTH).setStagedTabs(true).build());
+
+		//主线程尚未空闲，只创建了可见范围附近的tab
+		assertNotNull(mTabLayout.getTabView(0));
+		assertNull(mTabLayout.getTabView(TAB_COUNT - 1));
+
+		mTabLayout.setStagedTabs(false);
+		layout();
+
+		View last = mTabLayout.getTabView(TAB_COUNT - 1);
+		assertNotNull(last);
+		assertEquals(TAB_WIDTH * (TAB_COUNT - 1), last.getLeft());
+	}
+
+	@Test
+	public void canvasStripDrawsTitlesWithoutTabViews() {
+		attach(new TabStyle.Builder(mActivity).setTabWidth(TAB_WIDTH).setCanvasMode(true).setFarJumpAnimated(true).build());
+
+		assertNull(mTabLayout.getTabView(0));
+		mTabLayout.draw(new Canvas(Bitmap.createBitmap(mTabLayout.getWidth(), mTabLayout.getHeight(), Bitmap.Config.ARGB_8888)));
+
+		tap(TAB_WIDTH * 3 + TAB_WIDTH / 2);
+		assertEquals(3, mViewPager.getCurrentItem());
+	}
+
+	@Test
+	public void stagedTabsCanNotBeVirtualized() {
+		try {
+			new TabStyle.Builder(mActivity).setStagedTabs(true).setVirtualized(true).build();
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+		try {
+			new TabStyle.Builder(mActivity).setStagedTabs(true).setCanvasMode(true).build();
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+
+		attach(new TabStyle.Builder(mActivity).setStagedTabs(true).build());
+		try {
+			mTabLayout.setVirtualized(true);
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+		assertFalse(mTabLayout.isVirtualized());
+	}
+
+	@Test
+	public void virtualizedStripCanNotBeStaged() {
+		attach(new TabStyle.Builder(mActivity).setVirtualized(true).build());
+		try {
+			mTabLayout.setStagedTabs(true);
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+		assertFalse(mTabLayout.isStagedTabs());
+	}
+
+	@Test
+	public void pagedTitlesRequireComputedGeometry() {
+		attach(new TabStyle.Builder(mActivity).build());
+		try {
+			mTabLayout.setViewPager(mViewPager, new CountingProvider(), new DirectExecutor());
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+
+		mTabLayout.setVirtualized(true);
+		mTabLayout.setViewPager(mViewPager, new CountingProvider(), new DirectExecutor());
+		ShadowLooper.idleMainLooper();
+		try {
+			mTabLayout.setVirtualized(false);
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+		assertTrue(mTabLayout.isVirtualized());
+		assertEquals("Paged 0", mTabLayout.getTitleView(0).getText().toString());
+	}
+
+	private void attach(TabStyle style) {
+		mTabLayout = new SlidingTabLayout(mActivity, style);
+		mRoot.addView(mTabLayout, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 120));
+		mViewPager = new ViewPager(mActivity);
+		mViewPager.setAdapter(new TitleAdapter());
+		mRoot.addView(mViewPager, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 0, 1));
+		mTabLayout.setViewPager(mViewPager);
+		layout();
+	}
+
+	private void layout() {
+		mRoot.measure(View.MeasureSpec.makeMeasureSpec(320, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY));
+		mRoot.layout(0, 0, 320, 480);
+	}
+
+	private void tap(float x) {
+		float y = mTabLayout.getHeight() / 2f;
+		long time = SystemClock.uptimeMillis();
+		mTabLayout.dispatchTouchEvent(MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, x, y, 0));
+		mTabLayout.dispatchTouchEvent(MotionEvent.obtain(time, time + 50, MotionEvent.ACTION_UP, x, y, 0));
+		ShadowLooper.idleMainLooper();
+	}
+
+	private static class TitleAdapter extends PagerAdapter {
+
+		@Override
+		public int getCount() {
+			return TAB_COUNT;
+		}
+
+		@Override
+		public CharSequence getPageTitle(int position) {
+			return "Tab " + position;
+		}
+
+		@Override
+		public Object instantiateItem(ViewGroup container, int position) {
+			View page = new View(container.getContext());
+			container.addView(page);
+			return page;
+		}
+
+		@Override
+		public void destroyItem(ViewGroup container, int position, Object object) {
+			container.removeView((View) object);
+		}
+
+		@Override
+		public boolean isViewFromObject(View view, Object object) {
+			return view == object;
+		}
+	}
+
+	private static class CountingProvider implements TabTitleProvider {
+
+		@Override
+		public CharSequence[] loadTitles(int positionStart, int itemCount) {
+			CharSequence[] titles = new CharSequence[itemCount];
+			for (int i = 0; i < itemCount; i++) {
+				titles[i] = "Paged " + (positionStart + i);
+			}
+			return titles;
+		}
+	}
+
+	private static class DirectExecutor implements Executor {
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	}
+}
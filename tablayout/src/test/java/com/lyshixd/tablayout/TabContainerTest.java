@@ -0,0 +1,153 @@
+package com.lyshixd.tablayout;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.HorizontalScrollView;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *@Description: TabContainer的测量：固定宽度、包裹内容和按权重等分的tab，在HorizontalScrollView中撑满，gravity和尺寸固定的判断
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class TabContainerTest {
+
+	private static final int WIDTH = 301;
+	private static final int HEIGHT = 100;
+
+	private Activity mActivity;
+	private TabContainer mContainer;
+
+	@Before
+	public void setUp() {
+		mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+		mContainer = new TabContainer(mActivity);
+	}
+
+	@Test
+	public void weightedTabsShareWidthWithoutLosingRemainder() {
+		CountingView first = addTab(0, 1);
+		CountingView second = addTab(0, 1);
+		CountingView third = addTab(0, 1);
+
+		measureAndLayout(WIDTH, HEIGHT);
+
+		assertEquals(100, first.getWidth());
+		assertEquals(100, second.getWidth());
+		assertEquals(101, third.getWidth());
+		assertEquals(200, third.getLeft());
+		//权重tab只测量一次
+		assertEquals(1, first.mMeasureCount);
+	}
+
+	@Test
+	public void mixedTabsGiveRemainingWidthToWeightedTab() {
+		CountingView fixed = addTab(50, 0);
+		CountingView wrap = addTab(LinearLayout.LayoutParams.WRAP_CONTENT, 0);
+		wrap.mContentWidth = 40;
+		CountingView weighted = addTab(0, 1);
+
+		measureAndLayout(WIDTH, HEIGHT);
+
+		assertEquals(50, fixed.getWidth());
+		assertEquals(40, wrap.getWidth());
+		assertEquals(50, wrap.getLeft());
+		assertEquals(WIDTH - 90, weighted.getWidth());
+		assertEquals(HEIGHT, weighted.getHeight());
+	}
+
+	@Test
+	public void weightedTabsFillViewportOfScrollView() {
+		//与SlidingTabLayout一样放在fillViewport的HorizontalScrollView中，先按内容测量，再按视口宽度测量
+		HorizontalScrollView scrollView = new HorizontalScrollView(mActivity);
+		scrollView.setFillViewport(true);
+		scrollView.addView(mContainer, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.MATCH_PARENT));
+		CountingView fixed = addTab(50, 0);
+		CountingView first = addTab(0, 1);
+		CountingView second = addTab(0, 1);
+
+		scrollView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+		scrollView.layout(0, 0, WIDTH, HEIGHT);
+
+		assertEquals(WIDTH, mContainer.getWidth());
+		assertEquals(50, fixed.getWidth());
+		assertEquals(125, first.getWidth());
+		assertEquals(126, second.getWidth());
+		assertEquals(175, second.getLeft());
+		assertEquals(HEIGHT, second.getHeight());
+	}
+
+	@Test
+	public void containerGravityAlignsTabs() {
+		mContainer.setGravity(Gravity.CENTER);
+		CountingView tab = addTab(100, 0);
+		tab.getLayoutParams().height = 20;
+
+		measureAndLayout(WIDTH, HEIGHT);
+
+		assertEquals((WIDTH - 100) / 2, tab.getLeft());
+		assertEquals((HEIGHT - 20) / 2, tab.getTop());
+	}
+
+	@Test
+	public void onlyFixedWidthTabsInExactHeightAreSizeFixed() {
+		CountingView fixed = addTab(50, 0);
+		CountingView weighted = addTab(0, 1);
+		CountingView wrap = addTab(LinearLayout.LayoutParams.WRAP_CONTENT, 0);
+
+		measureAndLayout(WIDTH, HEIGHT);
+		assertTrue(mContainer.isSizeFixed(fixed));
+		assertFalse(mContainer.isSizeFixed(weighted));
+		assertFalse(mContainer.isSizeFixed(wrap));
+
+		mContainer.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST));
+		assertFalse(mContainer.isSizeFixed(fixed));
+	}
+
+	private CountingView addTab(int width, float weight) {
+		CountingView tab = new CountingView(mActivity);
+		mContainer.addView(tab, new LinearLayout.LayoutParams(width, ViewGroup.LayoutParams.MATCH_PARENT, weight));
+		return tab;
+	}
+
+	private void measureAndLayout(int width, int height) {
+		mContainer.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+		mContainer.layout(0, 0, mContainer.getMeasuredWidth(), mContainer.getMeasuredHeight());
+	}
+
+	/**
+	 * 记录测量次数，包裹内容时宽度为mContentWidth
+	 */
+	private static class CountingView extends View {
+
+		int mContentWidth = 10;
+		int mMeasureCount;
+
+		CountingView(Context context) {
+			super(context);
+		}
+
+		@Override
+		protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+			mMeasureCount++;
+			setMeasuredDimension(resolveSize(mContentWidth, widthMeasureSpec), resolveSize(10, heightMeasureSpec));
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.lyshixd.tabview;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.util.AttributeSet;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewParent;
+
+import androidx.appcompat.widget.AppCompatTextView;
+
+/**
+ *@Description: 默认的tab view，标题本身就是tab，不再用RelativeLayout包一层TextView。
+ * 居中由gravity完成，tab内边距直接设置在自身上，只有一次测量；
+ * 父布局确认tab尺寸固定(指定宽度且高度确定)时，字号变化只重建文字布局并重绘，不再向上请求重新布局。
+ * 继承AppCompatTextView，与布局中的TextView一样支持appcompat的着色和自动字号。
+ * tablayout和scrolltablayout共用这一份
+ */
+public class TabItemView extends AppCompatTextView {
+
+	/**
+	 * 决定子view尺寸的父布局。只有父布局确认尺寸与文字无关时，字号变化才跳过重新布局
+	 */
+	public interface SizeOwner {
+		boolean isSizeFixed(View child);
+	}
+
+	//正在修改字号，期间的requestLayout可以跳过
+	private boolean mIsTextSizeChanging;
+	//颜色过渡时复用的颜色
+	private TransitionColor mTransitionColor;
+
+	public TabItemView(Context context) {
+		this(context, null);
+	}
+
+	public TabItemView(Context context, AttributeSet attrs) {
+		this(context, attrs, 0);
+	}
+
+	public TabItemView(Context context, AttributeSet attrs, int defStyleAttr) {
+		super(context, attrs, defStyleAttr);
+		//布局中没有指定id时也要能被TabHolder找到
+		if (getId() == NO_ID) {
+			setId(R.id.tv_tab_title);
+		}
+		setGravity(Gravity.CENTER);
+		setSingleLine(true);
+	}
+
+	@Override
+	public void setTextSize(int unit, float size) {
+		mIsTextSizeChanging = isFixedSize();
+		try {
+			super.setTextSize(unit, size);
+		}
+		finally {
+			mIsTextSizeChanging = false;
+		}
+	}
+
+	@Override
+	public void requestLayout() {
+		//尺寸不随文字变化，TextView在绘制前会按当前宽度重建文字布局
+		if (mIsTextSizeChanging) {
+			invalidate();
+			return;
+		}
+		super.requestLayout();
+	}
+
+	/**
+	 * 设置粗体，状态没有变化时不重绘
+	 */
+	public void setFakeBold(boolean bold) {
+		if (getPaint().isFakeBoldText() == bold) {
+			return;
+		}
+		getPaint().setFakeBoldText(bold);
+		invalidate();
+	}
+
+	/**
+	 * 设置过渡中的文字颜色。setTextColor(int)每次都会创建ColorStateList，
+	 * 滑动时每帧都变色，这里复用同一个对象只修改颜色
+	 */
+	public void setTransitionColor(int color) {
+		if (getCurrentTextColor() == color) {
+			return;
+		}
+		if (mTransitionColor == null) {
+			mTransitionColor = new TransitionColor();
+		}
+		mTransitionColor.mColor = color;
+		setTextColor(mTransitionColor);
+	}
+
+	/**
+	 * 当前尺寸是否与文字无关：已经布局过，并且父布局是SizeOwner且确认尺寸固定。
+	 * 其他父布局无法确认，总是重新布局
+	 */
+	private boolean isFixedSize() {
+		if (getLayoutParams() == null || isLayoutRequested() || getWidth() == 0) {
+			return false;
+		}
+		ViewParent parent = getParent();
+		return parent instanceof SizeOwner && ((SizeOwner) parent).isSizeFixed(this);
+	}
+
+	/**
+	 * 颜色可修改的ColorStateList，所有状态都使用同一个颜色
+	 */
+	private static class TransitionColor extends ColorStateList {
+
+		private int mColor;
+
+		TransitionColor() {
+			super(new int[][]{new int[0]}, new int[]{0});
+		}
+
+		@Override
+		public int getColorForState(int[] stateSet, int defaultColor) {
+			return mColor;
+		}
+
+		@Override
+		public int getDefaultColor() {
+			return mColor;
+		}
+
+		@Override
+		public boolean isStateful() {
+			return false;
+		}
+	}
+}